@@ -0,0 +1,89 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.BaseEntityListener;
+import study.datajpa.Entity.Item;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔티티 한 건당 auditing 비용.
+ * - auditor 생성: UUID.randomUUID() (SecureRandom) vs 요청/스레드 단위 캐시
+ * - 필드 채우기: 스프링 데이터 AuditingHandler(리플렉션) vs BaseEntityListener(직접 호출)
+ * - 저장 전체: insertAll 로 1000건 저장 (결과는 한 건당 시간)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditingBenchmark {
+    private static final int BATCH = 1000;
+
+    ConfigurableApplicationContext context;
+    AuditorAware<String> auditorAware;
+    AuditingHandler auditingHandler;
+    BaseEntityListener baseEntityListener;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        auditorAware = context.getBean(AuditorAware.class);
+        auditingHandler = context.getBean(AuditingHandler.class);
+        baseEntityListener = new BaseEntityListener(auditorAware);
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = BenchmarkApplication.transactionTemplate(context, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String randomUuidAuditor() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object cachedAuditor() {
+        return auditorAware.getCurrentAuditor();
+    }
+
+    @Benchmark
+    public Object springDataAuditingHandler() {
+        return auditingHandler.markCreated(new Item("item"));
+    }
+
+    @Benchmark
+    public Object baseEntityListener() {
+        Member member = new Member("member", 10);
+        baseEntityListener.prePersist(member);
+        return member;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long persistMembers() {
+        List<Member> members = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        return transactionTemplate.execute(status -> memberRepository.insertAll(members));
+    }
+}
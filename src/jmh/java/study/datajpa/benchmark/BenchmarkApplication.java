@@ -0,0 +1,74 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용으로 임베디드(in-memory) H2 에 JPA 컨텍스트를 띄우고 데이터를 넣는다.
+ */
+final class BenchmarkApplication {
+    static final int AGE_BUCKETS = 10;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        return start(WebApplicationType.NONE, extraProperties);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "decorator.datasource.enabled=false", // p6spy 로그는 측정에 방해가 된다.
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "datajpa.sql-budget.mode=OFF",
+                "logging.level.root=warn"));
+        properties.addAll(List.of(extraProperties));
+
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(webApplicationType)
+                .properties(properties.toArray(String[]::new))
+                .run();
+    }
+
+    /**
+     * teamCount 개의 팀에 memberCount 명을 고르게 나눠 넣는다. 나이는 0 ~ AGE_BUCKETS-1 로 분산한다.
+     */
+    static void seed(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+        transactionTemplate(context, false).executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                teams.add(teamRepository.save(new Team("team" + i)));
+            }
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < memberCount; i++) {
+                members.add(new Member("member" + i, i % AGE_BUCKETS, teams.get(i % teamCount)));
+            }
+            memberRepository.insertAll(members);
+        });
+    }
+
+    static TransactionTemplate transactionTemplate(ConfigurableApplicationContext context, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate;
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findByNames 조회 방식 비교. (이름 10개, 1천 개, 10만 개)
+ * - IN: 청크 없이 in 절 하나
+ * - CHUNKED: 1000개씩 나눈 in 절
+ * - ARRAY: 배열 파라미터를 table() 로 펼쳐서 조인
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindByNamesBenchmark {
+    public enum Strategy { IN, CHUNKED, ARRAY }
+
+    @Param({"10", "1000", "100000"})
+    int nameCount;
+
+    @Param({"IN", "CHUNKED", "ARRAY"})
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "datajpa.in-list.chunk-size=" + (strategy == Strategy.IN ? Integer.MAX_VALUE : 1000),
+                "datajpa.in-list.array-threshold=" + (strategy == Strategy.ARRAY ? 0 : Integer.MAX_VALUE));
+        BenchmarkApplication.seed(context, 100_000, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = BenchmarkApplication.transactionTemplate(context, true);
+
+        names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            names.add("member" + (i * 7 % 100_000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findByNames() {
+        return readOnly.execute(status -> memberRepository.findByNames(names).size());
+    }
+}
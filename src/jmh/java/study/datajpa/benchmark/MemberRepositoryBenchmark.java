@@ -0,0 +1,135 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository 메소드 계열별 비교.
+ * - 연관관계 로딩: 지연 로딩(N+1) vs fetch join vs @EntityGraph
+ * - 프로젝션: 엔티티 vs 인터페이스(UsernameOnly, NestedClosedProjections) vs 클래스(UsernameOnlyDto)
+ * - 페이징: offset(Page) vs Slice vs keyset
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+    private static final int PAGE_SIZE = 10;
+    private static final int AGE = 3;
+    private static final Sort SORT = Sort.by("username", "id");
+
+    @Param({"1000", "10000"})
+    int memberCount;
+
+    @Param({"10"})
+    int teamCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate readOnly;
+
+    int lastPage;
+    Member beforeLastPage; // keyset 페이징의 커서 역할
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        readOnly = BenchmarkApplication.transactionTemplate(context, true);
+
+        // 같은 위치(마지막 페이지)를 offset 과 keyset 으로 각각 조회한다.
+        int rowsForAge = memberCount / BenchmarkApplication.AGE_BUCKETS;
+        lastPage = (rowsForAge - 1) / PAGE_SIZE;
+        beforeLastPage = lastPage == 0 ? null : readOnly.execute(status -> memberRepository
+                .findListByAge(AGE, PageRequest.of(lastPage * PAGE_SIZE - 1, 1, SORT))
+                .get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void lazyLoading(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findMemberCustom()) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findMemberFetchJoin()) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findMemberEntityGraph()) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public Object entityByUsername() {
+        return readOnly.execute(status -> memberRepository.findListByUsername("member1"));
+    }
+
+    @Benchmark
+    public Object interfaceProjection() {
+        return readOnly.execute(status -> memberRepository.findProjectionsByUsername("member1", UsernameOnly.class));
+    }
+
+    @Benchmark
+    public Object nestedProjection() {
+        return readOnly.execute(status -> memberRepository.findProjectionsByUsername("member1", NestedClosedProjections.class));
+    }
+
+    @Benchmark
+    public Object classProjection() {
+        return readOnly.execute(status -> memberRepository.findProjectionsByUsername("member1", UsernameOnlyDto.class));
+    }
+
+    @Benchmark
+    public Object offsetPage() {
+        return readOnly.execute(status -> memberRepository.findByAge(AGE,
+                PageRequest.of(lastPage, PAGE_SIZE, SORT)).getContent());
+    }
+
+    @Benchmark
+    public Object slice() {
+        return readOnly.execute(status -> memberRepository.findSliceByAge(AGE,
+                PageRequest.of(lastPage, PAGE_SIZE, SORT)).getContent());
+    }
+
+    @Benchmark
+    public Object keyset() {
+        return readOnly.execute(status -> beforeLastPage == null
+                ? memberJpaRepository.findByAgeAfter(AGE, null, null, PAGE_SIZE)
+                : memberJpaRepository.findByAgeAfter(AGE, beforeLastPage.getUsername(), beforeLastPage.getId(), PAGE_SIZE));
+    }
+}
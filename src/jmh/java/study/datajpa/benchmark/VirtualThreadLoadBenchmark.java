@@ -0,0 +1,66 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 플랫폼 스레드(톰캣 스레드 풀) 모드와 가상 스레드 모드의 처리량, p99 지연시간 비교.
+ * 톰캣 스레드 수보다 많은 클라이언트 스레드로 DB 를 조회하는 API 를 계속 호출한다.
+ * SampleTime 결과의 p0.99 를 비교한다. (JDK 21 이상)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(200)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class VirtualThreadLoadBenchmark {
+    private static final int TOMCAT_THREADS = 50;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"10000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "spring.datasource.hikari.maximum-pool-size=20");
+        BenchmarkApplication.seed(context, memberCount, 10);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        // count=EXACT 는 @Async(dbExecutor)로 넘기므로 요청 스레드 비교가 흐려진다. 요청 스레드에서 끝나는 경로를 쓴다.
+        uri = URI.create("http://localhost:" + port + "/members?size=20&count=CACHED");
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int members() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+}
@@ -5,11 +5,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
-
-import java.util.Optional;
-import java.util.UUID;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.datajpa.support.CachedAuditorAware;
 
 @EnableJpaAuditing
+@EnableScheduling
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -19,6 +19,6 @@ public class DataJpaApplication {
 
 	@Bean
 	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+		return new CachedAuditorAware(); // 요청마다 한 번만 만든다.
 	}
 }
@@ -0,0 +1,29 @@
+package study.datajpa.Entity;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 식별자를 애플리케이션에서 직접 넣는 엔티티의 공통 부모.
+ * id 가 null 이 아니어도 새 엔티티로 판단하게 해서 save() 가 merge() (select 후 insert) 대신 persist() 를 호출하게 한다.
+ * 저장되거나 조회된 이후에는 새 엔티티가 아니다.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity<ID> implements Persistable<ID> {
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
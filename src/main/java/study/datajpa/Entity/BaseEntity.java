@@ -4,26 +4,28 @@ import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(BaseEntityListener.class)
 @MappedSuperclass
 @Getter
 public class BaseEntity {
-    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createdDate;
-    @LastModifiedDate
     private LocalDateTime lastModifiedDate;
-    @CreatedBy
     @Column(updatable = false)
     private String createdBy;
-    @LastModifiedBy
     private String lastModifiedBy;
+
+    void markCreated(LocalDateTime now, String auditor) {
+        createdDate = now;
+        createdBy = auditor;
+        markModified(now, auditor); // 스프링 데이터 기본값과 같이 등록 시점에 수정일도 채운다.
+    }
+
+    void markModified(LocalDateTime now, String auditor) {
+        lastModifiedDate = now;
+        lastModifiedBy = auditor;
+    }
 }
@@ -0,0 +1,27 @@
+package study.datajpa.Entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDateTime;
+
+/**
+ * AuditingEntityListener 는 엔티티마다 리플렉션으로 @CreatedDate 같은 필드를 찾아서 값을 넣는다.
+ * BaseEntity 는 필드가 정해져 있으므로 메소드를 직접 호출한다.
+ */
+@RequiredArgsConstructor
+public class BaseEntityListener {
+    private final AuditorAware<String> auditorAware;
+
+    @PrePersist
+    public void prePersist(BaseEntity entity) {
+        entity.markCreated(LocalDateTime.now(), auditorAware.getCurrentAuditor().orElse(null));
+    }
+
+    @PreUpdate
+    public void preUpdate(BaseEntity entity) {
+        entity.markModified(LocalDateTime.now(), auditorAware.getCurrentAuditor().orElse(null));
+    }
+}
@@ -2,13 +2,11 @@ package study.datajpa.Entity;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
@@ -16,7 +14,8 @@ import java.time.LocalDateTime;
 @Entity
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Item implements Persistable<String> {
+@Getter
+public class Item extends AssignedIdEntity<String> {
     @Id
     private String id;
 
@@ -26,14 +25,4 @@ public class Item implements Persistable<String> {
     public Item(String id) {
         this.id = id;
     }
-
-    @Override
-    public String getId() {
-        return null;
-    }
-
-    @Override
-    public boolean isNew() {
-        return createdDate == null;
-    }
 }
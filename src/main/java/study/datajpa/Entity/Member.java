@@ -2,19 +2,44 @@ package study.datajpa.Entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Table(indexes = { // IndexAdvisor 가 MemberRepository / MemberJpaRepository 쿼리에서 뽑아낸 인덱스
+        @Index(name = "idx_member_username_age", columnList = "username, age"),          // findByUsername, findByUsernameAndAgeGreaterThan, findByNames
+        @Index(name = "idx_member_age_username", columnList = "age, username, member_id") // findByAge + order by username, keyset 페이징
+})
+@EntityListeners(MemberEntityListener.class)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) // team을 적으면 무한루프를 돌기 때문에 연관관계 필드는 toString에 넣지 않는게 좋다.
 @NamedQuery(
         name = "Member.findByUsername",
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") // 쿼리 캐시 사용. 벌크 연산이 실행되면 하이버네이트가 무효화한다.
 )
+// MemberJpaRepository 에서 사용. 애플리케이션 시작 시점에 한 번 파싱/검증해두므로 호출할 때마다 JPQL을 해석하지 않는다.
+// 이름이 MemberRepository 의 쿼리 메소드와 겹치면 스프링 데이터가 가져다 쓰므로 겹치지 않게 짓는다.
+@NamedQuery(name = "Member.all", query = "select m from Member m")
+@NamedQuery(name = "Member.allOrderById", query = "select m from Member m order by m.id") // MemberRepositoryImpl.streamAll
+@NamedQuery(name = "Member.countAll", query = "select count(m) from Member m")
+@NamedQuery(name = "Member.byUsernameAndAgeGreaterThan", query = "select m from Member m where m.username = :username and m.age > :age")
+@NamedQuery(name = "Member.byAgeOrderByUsernameDesc", query = "select m from Member m where m.age = :age order by m.username desc")
+@NamedQuery(name = "Member.byAgeFirst", query = "select m from Member m where m.age = :age order by m.username, m.id")
+@NamedQuery(name = "Member.byAgeAfter", query = "select m from Member m where m.age = :age" +
+        " and (m.username > :username or (m.username = :username and m.id > :id)) order by m.username, m.id")
+@NamedQuery(name = "Member.countAge", query = "select count(m) from Member m where m.age = :age")
+@NamedQuery(name = "Member.increaseAge", query = "update versioned Member m set m.age = m.age + 1, m.lastModifiedDate = local datetime where m.age >= :age")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") // 2차 캐시. 리전 설정은 application.conf
 public class Member extends BaseEntity {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100) // 시퀀스를 100개씩 미리 받아와서 insert 배치가 가능하다.
     @Column(name = "member_id")
     private Long id;
+    @Version // 수정할 때 where version = ? 로 충돌을 검사한다. 비관적 락 없이 동시 수정을 막는다.
+    private Long version;
     private String username;
     private int age;
     @ManyToOne(fetch = FetchType.LAZY)
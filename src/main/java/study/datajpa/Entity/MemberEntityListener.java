@@ -0,0 +1,22 @@
+package study.datajpa.Entity;
+
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import lombok.RequiredArgsConstructor;
+import study.datajpa.support.TotalCountCache;
+
+/**
+ * 스프링 부트가 하이버네이트에 SpringBeanContainer를 등록해주기 때문에 엔티티 리스너도 빈을 주입받을 수 있다.
+ */
+@RequiredArgsConstructor
+public class MemberEntityListener {
+    private final TotalCountCache totalCountCache;
+
+    @PrePersist // flush 전에 count 쿼리가 캐시를 읽지 않도록 persist 시점에 무효화
+    @PreRemove
+    @PostUpdate
+    public void onChange(Member member) {
+        totalCountCache.invalidate();
+    }
+}
@@ -2,6 +2,10 @@ package study.datajpa.Entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,12 +14,27 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") // 조회가 대부분이라 2차 캐시에 올려둔다. Member.team 지연 로딩도 캐시를 탄다.
+@NamedQuery(name = "Team.all", query = "select t from Team t")
+@NamedQuery(name = "Team.countAll", query = "select count(t) from Team t")
+@BatchSize(size = 100) // Member.team 프록시를 초기화할 때 영속성 컨텍스트에 있는 다른 팀 프록시도 in 쿼리로 한 번에 가져온다.
 public class Team {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 100)
     @Column(name = "team_id")
     private Long id;
+    @Version
+    private Long version;
     private String name;
+    // members 를 로딩하거나 group by count 를 하지 않고 바로 쓰는 팀별 회원 수.
+    // TeamMemberCountListener 가 커밋 직전에 member_count = member_count + ? 로만 바꾸므로 엔티티 수정으로는 덮어쓰지 않는다.
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long memberCount;
     @OneToMany(mappedBy = "team")
+    @BatchSize(size = 50) // 팀 하나의 members를 초기화할 때 다른 팀들의 members도 같이 가져온다.
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
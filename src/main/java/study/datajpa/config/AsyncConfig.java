@@ -0,0 +1,69 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+    public static final String DB_EXECUTOR = "dbExecutor";
+
+    /**
+     * 스프링 부트는 Executor 빈이 하나라도 있으면 applicationTaskExecutor 를 만들지 않는다.
+     * 그러면 MVC 비동기 처리(StreamingResponseBody, 리액티브 반환값)와 이름 없는 @Async 가 제한 없는 SimpleAsyncTaskExecutor 로 빠지므로
+     * 부트와 같은 이름, 같은 설정(spring.task.execution.*, 가상 스레드 모드)으로 다시 등록한다.
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @Primary
+    public AsyncTaskExecutor applicationTaskExecutor(Environment environment,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder,
+                                                     ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleAsyncTaskExecutorBuilder.build();
+        }
+        return threadPoolTaskExecutorBuilder.build();
+    }
+
+    /**
+     * @Async 레포지토리 메소드를 실행하는 스레드 풀.
+     * 스레드 하나가 커넥션 하나를 쓰므로 커넥션 풀 크기보다 크게 잡아봐야 커넥션 대기만 늘어난다.
+     * 큐가 가득 차면 호출한 스레드가 직접 실행해서(CallerRunsPolicy) 요청이 무한정 쌓이지 않게 한다.
+     * 가상 스레드 모드에서는 호출마다 가상 스레드를 만들고, 동시에 실행되는 수만 커넥션 풀 크기로 제한한다.
+     * (한도에 닿으면 호출한 스레드가 자리가 날 때까지 기다린다.)
+     */
+    @Bean(name = DB_EXECUTOR)
+    public AsyncTaskExecutor dbExecutor(Environment environment,
+                                        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                        @Value("${datajpa.db-executor.queue-capacity:100}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("db-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(poolSize);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("db-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
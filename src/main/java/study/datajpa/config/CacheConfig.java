@@ -0,0 +1,44 @@
+package study.datajpa.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager jCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        return provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+    }
+
+    // 하이버네이트가 별도의 CacheManager를 만들지 않고 위의 빈을 그대로 사용하게 한다.
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager jCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, jCacheManager);
+    }
+
+    /**
+     * 리전별 hit/miss/put/eviction 수치를 cache.* 메트릭으로 노출한다. (/actuator/metrics/cache.evictions)
+     * 리전은 EntityManagerFactory가 만들어질 때 생성되므로 애플리케이션이 준비된 뒤에 등록한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindCacheMetrics(ApplicationReadyEvent event) {
+        CacheManager jCacheManager = event.getApplicationContext().getBean(CacheManager.class);
+        MeterRegistry meterRegistry = event.getApplicationContext().getBean(MeterRegistry.class);
+        for (String name : jCacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(meterRegistry, jCacheManager.getCache(name));
+        }
+    }
+}
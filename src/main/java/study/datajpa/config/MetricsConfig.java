@@ -0,0 +1,25 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 쿼리별 실행 시간/횟수를 hibernate.query.* 메트릭으로 노출한다. (query 태그에 HQL)
+     * 스프링 부트가 등록하는 hibernate.* 메트릭은 세션 팩토리 전체 합계만 보여준다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindQueryMetrics(ApplicationReadyEvent event) {
+        SessionFactory sessionFactory = event.getApplicationContext().getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        MeterRegistry meterRegistry = event.getApplicationContext().getBean(MeterRegistry.class);
+        new HibernateQueryMetrics(sessionFactory, "entityManagerFactory", Tags.empty()).bindTo(meterRegistry);
+    }
+}
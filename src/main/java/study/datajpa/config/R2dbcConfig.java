@@ -0,0 +1,47 @@
+package study.datajpa.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+@Configuration
+public class R2dbcConfig {
+
+    /**
+     * JDBC 데이터소스(Hikari)와 별개의 커넥션 풀. 커넥션은 처음 구독할 때 만들어진다.
+     * ConnectionFactory 타입으로 빈을 등록하면 DataSourceAutoConfiguration 이 꺼지므로 감싸서 등록한다.
+     */
+    @Bean
+    public R2dbcPool r2dbcPool(@Value("${datajpa.r2dbc.url}") String url,
+                               @Value("${datajpa.r2dbc.username}") String username,
+                               @Value("${datajpa.r2dbc.password}") String password,
+                               @Value("${datajpa.r2dbc.max-size:10}") int maxSize) {
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url)
+                .username(username)
+                .password(password)
+                .build());
+        return new R2dbcPool(new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("r2dbc")
+                .maxSize(maxSize)
+                .build()));
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(R2dbcPool r2dbcPool) {
+        return DatabaseClient.create(r2dbcPool.connectionPool());
+    }
+
+    public record R2dbcPool(ConnectionPool connectionPool) implements DisposableBean {
+        @Override
+        public void destroy() {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * readOnly 트랜잭션은 레플리카로, 나머지는 프라이머리로 보낸다.
+ * 레플리카가 죽었거나 지연이 크면 프라이머리로 되돌린다.
+ *
+ * 트랜잭션이 시작될 때 커넥션을 먼저 가져가면 readOnly 여부를 알 수 없으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 사용해야 한다.
+ */
+@RequiredArgsConstructor
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isAvailable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
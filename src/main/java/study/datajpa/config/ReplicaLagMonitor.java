@@ -0,0 +1,77 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * 주기적으로 레플리카에 접속해서 사용 가능 여부와 복제 지연(ms)을 확인한다.
+ * lagQuery 는 지연 시간을 밀리초로 돌려주는 쿼리다. (예: PostgreSQL 이라면
+ * select extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000)
+ * 지정하지 않으면 접속 가능 여부만 본다.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private volatile boolean available = true;
+    private volatile long lagMillis;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.datasource.replica.check-interval:PT5S}")
+    public void check() {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(1)) {
+                markUnavailable("connection is not valid");
+                return;
+            }
+            lagMillis = StringUtils.hasText(lagQuery) ? queryLag(connection) : 0;
+            if (lagMillis > maxLag.toMillis()) {
+                markUnavailable("lag " + lagMillis + "ms exceeds " + maxLag.toMillis() + "ms");
+                return;
+            }
+            if (!available) {
+                log.info("replica is available again (lag {}ms)", lagMillis);
+            }
+            available = true;
+        } catch (SQLException e) {
+            markUnavailable(e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    private long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private void markUnavailable(String reason) {
+        if (available) {
+            log.warn("replica is unavailable, routing reads to primary: {}", reason);
+        }
+        available = false;
+    }
+}
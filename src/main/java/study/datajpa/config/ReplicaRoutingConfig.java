@@ -0,0 +1,73 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * datajpa.datasource.replica.jdbc-url 이 설정되어 있을 때만 프라이머리/레플리카 라우팅을 사용한다.
+ * 설정이 없으면 스프링 부트가 만드는 단일 데이터소스를 그대로 사용한다.
+ * ddl-auto=create 는 기본 대상인 프라이머리에만 스키마를 만든다. 레플리카는 복제로 스키마를 받아야 하고,
+ * 로컬에서 별도의 H2 를 레플리카로 쓰면 테이블이 없으므로 스키마를 따로 만들어줘야 한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.datasource.replica", name = "jdbc-url")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // @ConfigurationProperties 는 이 메소드가 끝난 뒤에 바인딩되어 spring.datasource.hikari.pool-name 이 이름을 덮어쓴다.
+        // 풀 설정을 먼저 바인딩하고 나서 메트릭 태그로 쓰일 이름을 정한다.
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("datajpa.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${datajpa.datasource.replica.lag-query:}") String lagQuery,
+                                               @Value("${datajpa.datasource.replica.max-lag:PT1S}") Duration maxLag) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag);
+    }
+
+    // p6spy 는 이 빈을 건너뛰고 프라이머리/레플리카 풀을 각각 감싼다. (decorator.datasource.exclude-beans)
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaLagMonitor);
+        routing.setTargetDataSources(Map.<Object, Object>of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        // 실제 커넥션은 첫 쿼리 시점에 가져오므로 그때는 트랜잭션의 readOnly 여부가 정해져 있다.
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
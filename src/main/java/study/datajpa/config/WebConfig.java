@@ -0,0 +1,25 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.Entity.Member;
+import study.datajpa.support.MemberBatchLoader;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    private final MemberBatchLoader memberBatchLoader;
+
+    /**
+     * @PathVariable Member 를 도메인 클래스 컨버터(findById) 대신 MemberBatchLoader 로 채운다.
+     * String -> Member 로 타입이 더 구체적이라 DomainClassConverter 보다 먼저 선택된다.
+     * 없는 id 면 DomainClassConverter 처럼 null 을 돌려준다.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, Member.class,
+                id -> memberBatchLoader.load(Long.valueOf(id)).join().orElse(null));
+    }
+}
@@ -1,42 +1,121 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import study.datajpa.Entity.Member;
+import study.datajpa.dto.CursorResult;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberCursor;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.ConcurrencyStrategy;
+import study.datajpa.support.CountMode;
+import study.datajpa.support.MemberBatchLoader;
+import study.datajpa.support.OptimisticRetryExecutor;
+import study.datajpa.support.StripedLocks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final StripedLocks stripedLocks;
+    private final MemberBatchLoader memberBatchLoader;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberBatchLoader.load(id).join().get(); // 동시에 들어온 id 조회를 in 쿼리 하나로 묶는다.
         return member.getUsername();
     }
 
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) { // 도메인 클래스 컨버터. id를 받아서 알아서 member를 채워준다.PK일 때 사용 가능.
+    public String findMember2(@PathVariable("id") Member member) { // 도메인 클래스 컨버터. id를 받아서 알아서 member를 채워준다.PK일 때 사용 가능. (WebConfig 에서 MemberBatchLoader 로 교체)
         return member.getUsername();
     }
 
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 12) Pageable pageable) { // 바로 바인딩되게 할 수 있음.
-        return memberRepository.findAll(pageable).map(MemberDto::new);
+    public Page<MemberDto> list(@PageableDefault(size = 12) Pageable pageable, // 바로 바인딩되게 할 수 있음.
+                                @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode) { // ?count=CACHED 처럼 요청마다 선택
+        if (countMode == CountMode.EXACT) { // count를 매번 실행해야 하면 content와 병렬로 조회한다.
+            return memberRepository.findMemberDtoListBy(pageable)
+                    .thenCombine(memberRepository.countMembers(), (content, total) -> new PageImpl<>(content, pageable, total))
+                    .join();
+        }
+        return memberRepository.findMemberDtoPage(pageable, countMode); // 엔티티 대신 DTO로 바로 조회
+    }
+
+    @GetMapping("/members/scroll")
+    public CursorResult<MemberDto> scroll(@RequestParam(value = "cursor", required = false) String cursor) { // 페이지 번호 대신 커서를 주고받는다.
+        Window<Member> window = memberRepository.findFirst12ByOrderByUsernameAsc(MemberCursor.decode(cursor));
+        return new CursorResult<>(window.map(MemberDto::new).getContent(), MemberCursor.next(window));
+    }
+
+    @GetMapping(value = "/members/export", produces = "application/x-ndjson")
+    public StreamingResponseBody export() { // 한 줄에 회원 한 명씩 커서에서 바로 써준다.
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Member> members = memberRepository.streamAll(EXPORT_FETCH_SIZE)) {
+                Iterator<Member> iterator = members.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(new MemberDto(iterator.next())));
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PostMapping("/members/by-username/{username}/birthday")
+    public int birthday(@PathVariable("username") String username,
+                        @RequestParam(value = "lock", defaultValue = "OPTIMISTIC") ConcurrencyStrategy strategy) { // 용도에 맞게 락 방식을 고른다.
+        return switch (strategy) {
+            case PESSIMISTIC -> new TransactionTemplate(transactionManager).execute(status ->
+                    increaseAge(memberRepository.findLockByUsername(username)));
+            case OPTIMISTIC -> optimisticRetryExecutor.execute("member.birthday", () ->
+                    increaseAge(memberRepository.findListByUsername(username)));
+            case STRIPED -> stripedLocks.withLock(username, () -> optimisticRetryExecutor.execute("member.birthday", () ->
+                    increaseAge(memberRepository.findListByUsername(username))));
+        };
+    }
+
+    private int increaseAge(List<Member> members) {
+        members.forEach(member -> member.setAge(member.getAge() + 1)); // 변경 감지. 커밋할 때 version 을 비교한다.
+        return members.size();
     }
 
 //    @PostConstruct // 애플리케이션이 실행될 때 같이 실행됨
     public void init() {
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberRepository.insertAll(members);
     }
 }
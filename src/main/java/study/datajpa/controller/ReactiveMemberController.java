@@ -0,0 +1,42 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.ReactiveMemberRepository;
+
+/**
+ * Flux/Mono 를 반환하면 스프링 MVC 가 비동기 요청으로 처리해서 조회하는 동안 서블릿 스레드를 붙잡지 않는다.
+ * ndjson 은 한 건씩 요청하면서 써주므로 클라이언트가 느리면 DB 에서도 그만큼 천천히 읽는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ReactiveMemberController {
+    private final ReactiveMemberRepository reactiveMemberRepository;
+
+    @GetMapping(value = "/reactive/members", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberDto> list(@RequestParam(value = "username", required = false) String username,
+                                @RequestParam(value = "age", required = false) Integer age,
+                                @PageableDefault(size = 12) Pageable pageable) {
+        if (username != null) {
+            return reactiveMemberRepository.findByUsername(username);
+        }
+        if (age != null) {
+            return reactiveMemberRepository.findByAge(age, pageable.getOffset(), pageable.getPageSize());
+        }
+        return reactiveMemberRepository.findAll();
+    }
+
+    @GetMapping("/reactive/members/{id}")
+    public Mono<MemberDto> findMember(@PathVariable("id") Long id) {
+        return reactiveMemberRepository.findById(id);
+    }
+}
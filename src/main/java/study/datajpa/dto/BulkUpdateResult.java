@@ -0,0 +1,29 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BulkUpdateResult {
+    private final List<Chunk> chunks;
+    private final int totalAffected;
+
+    public BulkUpdateResult(List<Chunk> chunks) {
+        this.chunks = chunks;
+        this.totalAffected = chunks.stream().mapToInt(Chunk::getAffected).sum();
+    }
+
+    @Getter
+    public static class Chunk {
+        private final long fromId; // 포함
+        private final long toId;   // 미포함
+        private final int affected;
+
+        public Chunk(long fromId, long toId, int affected) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.affected = affected;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class CursorResult<T> {
+    private final List<T> content;
+    private final String nextCursor; // 다음 페이지가 없으면 null
+    private final boolean hasNext;
+
+    public CursorResult(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
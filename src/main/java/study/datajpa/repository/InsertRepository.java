@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 새 엔티티를 merge 없이 persist 만으로 저장하는 레포지토리 조각(fragment).
+ * 필요한 레포지토리 인터페이스가 같이 상속하면 된다. ex) ItemRepository extends InsertRepository<Item>
+ * MemberRepository 도 대량 저장(insertAll)에 이 조각을 같이 쓴다.
+ */
+public interface InsertRepository<T> {
+    // batch_size 단위로 flush/clear 하면서 JDBC 배치로 insert 한다. 저장된 엔티티는 준영속 상태가 된다.
+    @Transactional
+    long insertAll(Iterable<T> entities);
+}
@@ -0,0 +1,28 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+
+@RequiredArgsConstructor
+public class InsertRepositoryImpl<T> implements InsertRepository<T> {
+    private final EntityManager em;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    public long insertAll(Iterable<T> entities) {
+        long count = 0;
+        for (T entity : entities) {
+            em.persist(entity);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
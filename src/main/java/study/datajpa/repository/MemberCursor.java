@@ -0,0 +1,59 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.util.StringUtils;
+import study.datajpa.Entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * (username, id) 정렬 키를 클라이언트에게 넘겨줄 불투명한 커서 문자열로 변환한다.
+ */
+public final class MemberCursor {
+    private static final String SEPARATOR = ":";
+
+    private MemberCursor() {
+    }
+
+    public static String encode(String username, Long id) {
+        String raw = id + SEPARATOR + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String next(Window<Member> window) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        Member last = window.getContent().get(window.size() - 1);
+        return encode(last.getUsername(), last.getId());
+    }
+
+    /**
+     * 커서가 없으면 처음부터 조회하는 위치를 돌려준다.
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return ScrollPosition.keyset();
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + cursor, e);
+        }
+        int idx = raw.indexOf(SEPARATOR);
+        if (idx < 0) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + cursor);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("username", raw.substring(idx + 1));
+        keys.put("id", Long.valueOf(raw.substring(0, idx)));
+        return ScrollPosition.forward(keys);
+    }
+}
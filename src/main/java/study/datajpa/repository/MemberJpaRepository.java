@@ -3,29 +3,36 @@ package study.datajpa.repository;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.Entity.Member;
+import study.datajpa.support.CountMode;
+import study.datajpa.support.TotalCountCache;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true) // 조회는 스냅샷 없이 FlushMode.MANUAL 로 실행되고, 레플리카가 있으면 레플리카로 간다.
 public class MemberJpaRepository {
 //    @PersistenceContext
 //    private EntityManager em;
     private final EntityManager em;
+    private final TotalCountCache totalCountCache;
 
+    @Transactional
     public Member save(Member member) {
         em.persist(member);
         return member;
     }
 
+    @Transactional
     public void delete(Member member) {
         em.remove(member);
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createNamedQuery("Member.all", Member.class).getResultList();
     }
 
     public Optional<Member> findById(Long id) {
@@ -34,7 +41,7 @@ public class MemberJpaRepository {
     }
 
     public long count() {
-        return em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        return em.createNamedQuery("Member.countAll", Long.class).getSingleResult();
     }
 
     public Member find(Long id) {
@@ -42,8 +49,7 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByUsernameAndAgeGreaterThan(String username, int age) {
-        return em.createQuery("select m from Member m" +
-                " where m.username = :username and m.age > :age", Member.class)
+        return em.createNamedQuery("Member.byUsernameAndAgeGreaterThan", Member.class)
                 .setParameter("username", username)
                 .setParameter("age", age)
                 .getResultList();
@@ -56,22 +62,45 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByPage(int age, int offset, int limit) {
-        return em.createQuery("select m from Member m where m.age = :age order by m.username desc", Member.class)
+        return em.createNamedQuery("Member.byAgeOrderByUsernameDesc", Member.class)
                 .setParameter("age", age)
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
 
+    // Keyset 페이징. lastUsername, lastId가 null이면 첫 페이지
+    public List<Member> findByAgeAfter(int age, String lastUsername, Long lastId, int limit) {
+        if (lastId == null) {
+            return em.createNamedQuery("Member.byAgeFirst", Member.class)
+                    .setParameter("age", age)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return em.createNamedQuery("Member.byAgeAfter", Member.class)
+                .setParameter("age", age)
+                .setParameter("username", lastUsername)
+                .setParameter("id", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public long totalCount(int age) {
-        return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+        return em.createNamedQuery("Member.countAge", Long.class)
                 .setParameter("age", age)
                 .getSingleResult();
     }
 
+    public long totalCount(int age, CountMode countMode) {
+        return totalCountCache.get("Member.countByAge:" + age, countMode, () -> totalCount(age));
+    }
+
+    @Transactional
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        int resultCount = em.createNamedQuery("Member.increaseAge")
                 .setParameter("age", age)
                 .executeUpdate();
+        totalCountCache.invalidate(); // 벌크 연산은 엔티티 리스너를 거치지 않는다.
+        return resultCount;
     }
 }
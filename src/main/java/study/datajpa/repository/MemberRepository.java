@@ -4,17 +4,22 @@ import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.Entity.Member;
+import study.datajpa.config.AsyncConfig;
 import study.datajpa.dto.MemberDto;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, InsertRepository<Member> {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     @Query(name = "Member.findByUsername")
@@ -30,8 +35,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") Collection<String> names);
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t" +
+            " where m.username = :username")
+    List<MemberDto> findMemberDtoByUsername(@Param("username") String username);
 
     List<Member> findListByUsername(String username); // 컬렉션
     Member findMemberByUsername(String username); // 단건
@@ -43,13 +49,29 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     List<Member> findListByAge(int age, Pageable pageable);
 
+    // Keyset(Seek) 페이징. offset 없이 마지막으로 본 (username, id) 다음부터 조회하므로 페이지가 깊어져도 비용이 일정하다.
+    // 정렬 키 뒤에 id가 자동으로 붙어서 username이 같아도 순서가 보장된다.
+    Window<Member> findFirst10ByAgeOrderByUsernameAsc(int age, ScrollPosition position);
+
+    Window<Member> findFirst12ByOrderByUsernameAsc(ScrollPosition position);
+
+    // 비동기 조회. dbExecutor 스레드에서 각자 트랜잭션(커넥션)으로 실행되므로 content와 count를 동시에 조회할 수 있다.
+    @Async(AsyncConfig.DB_EXECUTOR)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoListBy(Pageable pageable);
+
+    @Async(AsyncConfig.DB_EXECUTOR)
+    @Query("select count(m) from Member m")
+    CompletableFuture<Long> countMembers();
+
     @Query(value = "select m from Member m left join m.team t",
         countQuery = "select count(m.username) from Member m")
     Page<Member> findCountQueryByAge(int age, Pageable pageable);
 
+    @Transactional // 쿼리 메소드는 기본이 readOnly 트랜잭션이라 쓰기 메소드는 명시해야 프라이머리로 간다.
     @Modifying(clearAutomatically = true) // 이 어노테이션이 있어야 executeUpdate를 실행한다.
     // clearAutomatically는 벌크 연산 후 영속성 컨텍스트를 초기화해준다.
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update versioned Member m set m.age = m.age + 1, m.lastModifiedDate = local datetime where m.age >= :age") // 벌크 연산은 리스너를 거치지 않으므로 DB 시간으로 수정일을 채운다. versioned 로 버전도 올려서 동시에 수정 중인 엔티티가 충돌을 감지하게 한다.
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -69,6 +91,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
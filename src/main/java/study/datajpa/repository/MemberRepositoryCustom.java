@@ -1,9 +1,44 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.Entity.Member;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.support.CountMode;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
+    @Transactional(readOnly = true)
     List<Member> findMemberCustom();
+
+    // username in (...) 조회. 개수가 많으면 in-list.chunk-size 씩 나눠서 조회하고,
+    // in-list.array-threshold 를 넘으면 in 절 대신 배열 파라미터 하나를 테이블로 펼쳐서 조인한다.
+    @Transactional(readOnly = true)
+    List<Member> findByNames(Collection<String> names);
+
+    // countMode에 따라 count 쿼리를 생략하거나 캐시된 total을 사용한다.
+    @Transactional(readOnly = true)
+    Page<Member> findPageByAge(int age, Pageable pageable, CountMode countMode);
+
+    @Transactional(readOnly = true)
+    Page<Member> findAllPage(Pageable pageable, CountMode countMode);
+
+    // 엔티티를 만들지 않고 id, username, team.name 컬럼만 DTO로 바로 조회한다.
+    @Transactional(readOnly = true)
+    Page<MemberDto> findMemberDtoPage(Pageable pageable, CountMode countMode);
+
+    // 전체 조회를 List로 올리지 않고 커서로 흘려보낸다. 트랜잭션 안에서 호출하고 반드시 close 해야 한다.
+    // 다운스트림이 다 쓴 회원은 하나씩 준영속으로 만들어서 메모리 사용량이 테이블 크기와 무관하게 유지된다. (병렬/정렬 스트림으로 바꾸지 않는다.)
+    Stream<Member> streamAll(int fetchSize);
+
+    // bulkAgePlus 를 id 범위(chunkSize)로 나눠서 실행한다. 바깥 트랜잭션이 없으면 청크마다 커밋해서 락을 짧게 잡는다.
+    // 영속성 컨텍스트를 통째로 비우지 않고 영향받은 Member 만 refresh 한다.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    BulkUpdateResult bulkAgePlusInChunks(int age, int chunkSize);
 }
@@ -1,17 +1,216 @@
 package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.datajpa.Entity.Member;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.support.CountMode;
+import study.datajpa.support.TotalCountCache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
     private final EntityManager em;
+    private final TotalCountCache totalCountCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${datajpa.in-list.chunk-size:1000}")
+    private int inListChunkSize;
+
+    @Value("${datajpa.in-list.array-threshold:10000}")
+    private int inListArrayThreshold;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
+
+    @Override
+    public List<Member> findByNames(Collection<String> names) {
+        List<String> distinctNames = List.copyOf(new LinkedHashSet<>(names));
+        if (distinctNames.size() > inListArrayThreshold) {
+            return findByNameArray(distinctNames);
+        }
+
+        // 청크마다 같은 영속성 컨텍스트에서 조회하므로 결과는 모두 영속 상태다.
+        List<Member> result = new ArrayList<>();
+        for (int from = 0, to; from < distinctNames.size(); from = to) {
+            to = (int) Math.min((long) from + inListChunkSize, distinctNames.size());
+            List<String> chunk = distinctNames.subList(from, to);
+            result.addAll(em.createQuery("select m from Member m where m.username in :names", Member.class)
+                    .setParameter("names", chunk)
+                    .getResultList());
+        }
+        return result;
+    }
+
+    /**
+     * H2 의 table 함수로 배열 파라미터를 임시 테이블처럼 펼쳐서 조인한다.
+     * 파라미터가 하나라서 개수 제한이 없고, username 인덱스를 타는 조인이 된다.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Member> findByNameArray(List<String> names) {
+        return em.createNativeQuery("select m.* from member m join table(name varchar = :names) t on m.username = t.name", Member.class)
+                .setParameter("names", names.toArray(String[]::new))
+                .getResultList();
+    }
+
+    @Override
+    public Page<Member> findPageByAge(int age, Pageable pageable, CountMode countMode) {
+        List<Member> content = pagedQuery("select m from Member m where m.age = :age", pageable)
+                .setParameter("age", age)
+                .getResultList();
+
+        // 첫 페이지에서 size보다 적게 조회되거나 마지막 페이지인 경우엔 count 쿼리 자체를 생략한다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> totalCountCache.get("Member.countByAge:" + age, countMode,
+                        () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                                .setParameter("age", age)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Page<Member> findAllPage(Pageable pageable, CountMode countMode) {
+        List<Member> content = pagedQuery("select m from Member m", pageable).getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> totalCountCache.get("Member.count", countMode,
+                        () -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult()));
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable, CountMode countMode) {
+        List<MemberDto> content = pagedQuery(
+                "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+                pageable, MemberDto.class)
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> totalCountCache.get("Member.count", countMode,
+                        () -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult()));
+    }
+
+    @Override
+    public Stream<Member> streamAll(int fetchSize) {
+        Set<Member> alreadyManaged = managedMembers();
+        Stream<Member> members = em.createNamedQuery("Member.allOrderById", Member.class)
+                .setHint("org.hibernate.fetchSize", fetchSize) // JDBC 드라이버가 한 번에 가져오는 row 수
+                .setHint("org.hibernate.readOnly", true) // 스냅샷을 만들지 않는다.
+                .getResultStream(); // 하이버네이트는 FORWARD_ONLY 스크롤로 결과를 읽는다.
+        Spliterator<Member> source = members.spliterator();
+
+        // 순차 스트림은 한 건의 다운스트림(map, forEach 등)이 다 끝난 뒤에 다음 건을 읽으므로 그때 떼어낸다.
+        // 영속성 컨텍스트를 통째로 비우지 않으므로 호출한 쪽이 원래 들고 있던 엔티티는 그대로 영속 상태다.
+        Spliterator<Member> detaching = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Member> action) {
+                return source.tryAdvance(member -> {
+                    action.accept(member);
+                    if (!alreadyManaged.contains(member)) {
+                        em.detach(member);
+                    }
+                });
+            }
+        };
+        return StreamSupport.stream(detaching, false).onClose(members::close);
+    }
+
+    @Override
+    public BulkUpdateResult bulkAgePlusInChunks(int age, int chunkSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Object[] range = transactionTemplate.execute(status ->
+                em.createQuery("select min(m.id), max(m.id) from Member m where m.age >= :age", Object[].class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+
+        List<BulkUpdateResult.Chunk> chunks = new ArrayList<>();
+        if (range == null || range[0] == null) {
+            return new BulkUpdateResult(chunks);
+        }
+
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long chunkFrom = fromId;
+            long chunkTo = fromId + chunkSize;
+            int affected = transactionTemplate.execute(status -> {
+                em.flush(); // refresh 가 아직 반영하지 않은 변경을 덮어쓰지 않도록 먼저 내보낸다.
+                int count = em.createQuery("update versioned Member m set m.age = m.age + 1, m.lastModifiedDate = local datetime" +
+                                " where m.age >= :age and m.id >= :fromId and m.id < :toId")
+                        .setParameter("age", age)
+                        .setParameter("fromId", chunkFrom)
+                        .setParameter("toId", chunkTo)
+                        .executeUpdate();
+                refreshManagedMembers(age, chunkFrom, chunkTo);
+                return count;
+            });
+            chunks.add(new BulkUpdateResult.Chunk(chunkFrom, chunkTo, affected));
+        }
+
+        totalCountCache.invalidate();
+        return new BulkUpdateResult(chunks);
+    }
+
+    /**
+     * 영속성 컨텍스트에 올라와 있는 Member 중 이번 청크에 해당하는 것만 DB 값으로 다시 읽는다.
+     * (하이버네이트는 HQL 벌크 연산을 실행하면 2차 캐시의 Member 리전을 알아서 비운다.)
+     */
+    private void refreshManagedMembers(int age, long fromId, long toId) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member member
+                    && member.getId() >= fromId && member.getId() < toId
+                    && member.getAge() >= age) {
+                em.refresh(member);
+            }
+        }
+    }
+
+    private Set<Member> managedMembers() {
+        Set<Member> members = Collections.newSetFromMap(new IdentityHashMap<>());
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member member) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
+
+    private TypedQuery<Member> pagedQuery(String jpql, Pageable pageable) {
+        return pagedQuery(jpql, pageable, Member.class);
+    }
+
+    private <T> TypedQuery<T> pagedQuery(String jpql, Pageable pageable, Class<T> resultClass) {
+        TypedQuery<T> query = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), resultClass);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
 }
@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.datajpa.dto.MemberDto;
+
+/**
+ * MemberRepository 의 주요 조회를 R2DBC 로 논블로킹하게 실행한다.
+ * 엔티티가 아닌 MemberDto 로 바로 읽고, 테이블/컬럼은 Member, Team 엔티티 매핑을 그대로 따른다.
+ * 쓰기는 JPA(MemberRepository)로만 한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveMemberRepository {
+    private static final String SELECT_MEMBER_DTO = "select m.member_id, m.username, t.name as team_name" +
+            " from member m left join team t on t.team_id = m.team_id";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<MemberDto> findById(Long id) {
+        return databaseClient.sql(SELECT_MEMBER_DTO + " where m.member_id = :id")
+                .bind("id", id)
+                .map(ReactiveMemberRepository::toMemberDto)
+                .one();
+    }
+
+    public Flux<MemberDto> findByUsername(String username) {
+        return databaseClient.sql(SELECT_MEMBER_DTO + " where m.username = :username")
+                .bind("username", username)
+                .map(ReactiveMemberRepository::toMemberDto)
+                .all();
+    }
+
+    public Flux<MemberDto> findByAge(int age, long offset, int limit) {
+        return databaseClient.sql(SELECT_MEMBER_DTO + " where m.age = :age order by m.username, m.member_id" +
+                        " limit :limit offset :offset")
+                .bind("age", age)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveMemberRepository::toMemberDto)
+                .all();
+    }
+
+    // 구독자가 요청한 만큼만 행을 가져온다. (backpressure)
+    public Flux<MemberDto> findAll() {
+        return databaseClient.sql(SELECT_MEMBER_DTO + " order by m.member_id")
+                .map(ReactiveMemberRepository::toMemberDto)
+                .all();
+    }
+
+    private static MemberDto toMemberDto(Readable row) {
+        return new MemberDto(row.get("member_id", Long.class), row.get("username", String.class), row.get("team_name", String.class));
+    }
+}
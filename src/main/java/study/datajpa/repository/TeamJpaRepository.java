@@ -3,27 +3,31 @@ package study.datajpa.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.Entity.Team;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public class TeamJpaRepository {
     @PersistenceContext
     private EntityManager em;
 
+    @Transactional
     public Team save(Team team) {
         em.persist(team);
         return team;
     }
 
+    @Transactional
     public void delete(Team team) {
         em.remove(team);
     }
 
     public List<Team> findAll() {
-        return em.createQuery("select t from Team t", Team.class).getResultList();
+        return em.createNamedQuery("Team.all", Team.class).getResultList();
     }
 
     public Optional<Team> findById(Long id) {
@@ -32,6 +36,6 @@ public class TeamJpaRepository {
     }
 
     public long count() {
-        return em.createQuery("select count(t) from Team t", Long.class).getSingleResult();
+        return em.createNamedQuery("Team.countAll", Long.class).getSingleResult();
     }
 }
@@ -0,0 +1,41 @@
+package study.datajpa.support;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 등록자/수정자를 저장할 때마다 새로 만들지 않고 요청 단위로(요청 밖에서는 스레드 단위로) 한 번만 만든다.
+ * UUID.randomUUID() 는 SecureRandom 을 쓰기 때문에 경합이 생기므로 ThreadLocalRandom 으로 만든다.
+ */
+public class CachedAuditorAware implements AuditorAware<String> {
+    private static final String ATTRIBUTE = CachedAuditorAware.class.getName() + ".AUDITOR";
+
+    private final ThreadLocal<String> threadAuditor = ThreadLocal.withInitial(CachedAuditorAware::newId);
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.of(threadAuditor.get());
+        }
+
+        Object auditor = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = newId();
+            attributes.setAttribute(ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.of((String) auditor);
+    }
+
+    static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L; // version 4
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
@@ -0,0 +1,11 @@
+package study.datajpa.support;
+
+/**
+ * 같은 회원을 동시에 수정할 때 쓰는 방식.
+ * PESSIMISTIC: select ... for update 로 행 락을 잡는다. 충돌이 잦고 재시도 비용이 클 때.
+ * OPTIMISTIC: @Version 충돌 시 OptimisticRetryExecutor 로 재시도한다. 충돌이 드물 때.
+ * STRIPED: 같은 키를 프로세스 안에서 먼저 줄 세우고 OPTIMISTIC 으로 실행한다. 특정 키에 몰릴 때.
+ */
+public enum ConcurrencyStrategy {
+    PESSIMISTIC, OPTIMISTIC, STRIPED
+}
@@ -0,0 +1,10 @@
+package study.datajpa.support;
+
+/**
+ * 페이지 조회 시 total count를 어떻게 구할지 결정한다.
+ */
+public enum CountMode {
+    EXACT,     // 매번 count 쿼리 실행
+    CACHED,    // 캐시된 값 사용. Member 쓰기가 발생하면 무효화된다.
+    ESTIMATED  // 무효화된 이후에도 TTL 동안은 이전 값을 그대로 사용 (근사치)
+}
@@ -0,0 +1,219 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.NamedQuery;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MemberRepository 의 쿼리 메소드(메소드 이름, @Query)와 MemberJpaRepository 가 쓰는 Member 의 @NamedQuery 를 분석해서
+ * 조건(=, in) 컬럼 -> 범위/정렬 컬럼 순서의 복합 인덱스를 제안하고, 기존 인덱스로 커버되는지와
+ * 데이터베이스의 EXPLAIN 결과(H2 는 tableScan 여부)를 로그로 남긴다.
+ * apply=true 면 커버되지 않는 인덱스를 create index 로 바로 만든다. 확정된 인덱스는 Member 의 @Table(indexes) 로 옮긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.index-advisor", name = "enabled", havingValue = "true")
+public class IndexAdvisor {
+    private static final String TABLE = "member";
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b(.*?)(\\border\\s+by\\b|$)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PREDICATE = Pattern.compile("(?:\\b\\w+\\.)?(\\w+)\\s*(>=|<=|<>|=|>|<|\\bin\\b|\\blike\\b|\\bbetween\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b(.*)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AbstractEntityPersister persister;
+
+    @Value("${datajpa.index-advisor.apply:false}")
+    private boolean apply;
+
+    public IndexAdvisor(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persister = (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Member.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        for (Advice advice : analyze()) {
+            if (advice.isIndexed()) {
+                log.info("[index] {} {} -> {}", advice.getSource(), advice.getColumns(), advice.getPlan());
+            } else {
+                log.warn("[index] {} {} is not indexed: {} (suggest: {})", advice.getSource(), advice.getColumns(), advice.getPlan(), advice.getDdl());
+            }
+        }
+    }
+
+    public List<Advice> analyze() {
+        List<Advice> result = new ArrayList<>();
+        for (QueryShape shape : shapes()) {
+            List<String> columns = shape.indexColumns();
+            if (columns.isEmpty()) {
+                continue; // 조건, 정렬이 없는 전체 조회
+            }
+            String ddl = "create index if not exists idx_advice_" + String.join("_", columns) + " on " + TABLE + " (" + String.join(", ", columns) + ")";
+            String plan = explain(shape);
+            if (apply && plan.contains("tableScan")) {
+                jdbcTemplate.execute(ddl);
+                plan = explain(shape);
+            }
+            result.add(new Advice(shape.source, columns, ddl, plan));
+        }
+        return result;
+    }
+
+    private List<QueryShape> shapes() {
+        List<QueryShape> shapes = new ArrayList<>();
+        for (Method method : MemberRepository.class.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            String source = "MemberRepository." + method.getName();
+            if (query != null && StringUtils.hasText(query.value())) {
+                shapes.add(parseQuery(source, query.value()));
+            } else {
+                fromMethodName(source, method.getName()).ifPresent(shapes::add);
+            }
+        }
+        for (NamedQuery namedQuery : Member.class.getAnnotationsByType(NamedQuery.class)) {
+            shapes.add(parseQuery(namedQuery.name(), namedQuery.query()));
+        }
+        return shapes;
+    }
+
+    private Optional<QueryShape> fromMethodName(String source, String methodName) {
+        PartTree tree;
+        try {
+            tree = new PartTree(methodName, Member.class);
+        } catch (RuntimeException e) {
+            return Optional.empty(); // 파생 쿼리가 아닌 메소드
+        }
+        QueryShape shape = new QueryShape(source);
+        for (PartTree.OrPart orPart : tree) {
+            for (Part part : orPart) {
+                if (part.getProperty().hasNext()) {
+                    continue; // team.name 같은 연관관계 경로
+                }
+                String property = part.getProperty().getSegment();
+                if (part.getType() == Part.Type.SIMPLE_PROPERTY || part.getType() == Part.Type.IN) {
+                    shape.equality.add(column(property));
+                } else {
+                    shape.range.add(column(property));
+                }
+            }
+        }
+        for (Sort.Order order : tree.getSort()) {
+            shape.sort.add(column(order.getProperty()));
+        }
+        return Optional.of(shape);
+    }
+
+    private QueryShape parseQuery(String source, String query) {
+        QueryShape shape = new QueryShape(source);
+        if (query.trim().toLowerCase().startsWith("update")) {
+            return shape;
+        }
+        Matcher where = WHERE.matcher(query);
+        if (where.find()) {
+            Matcher predicate = PREDICATE.matcher(where.group(1));
+            while (predicate.find()) {
+                String operator = predicate.group(2).toLowerCase();
+                (operator.equals("=") || operator.equals("in") ? shape.equality : shape.range).add(column(predicate.group(1)));
+            }
+        }
+        Matcher orderBy = ORDER_BY.matcher(query);
+        if (orderBy.find()) {
+            for (String order : orderBy.group(1).split(",")) {
+                String property = order.trim().split("\\s+")[0];
+                shape.sort.add(column(property.substring(property.indexOf('.') + 1)));
+            }
+        }
+        return shape;
+    }
+
+    // 엔티티 속성 이름을 컬럼 이름으로 바꾼다. 네이티브 쿼리라 이미 컬럼 이름이면 그대로 쓴다.
+    private String column(String property) {
+        try {
+            return persister.getPropertyColumnNames(property)[0].toLowerCase();
+        } catch (RuntimeException e) {
+            return property.toLowerCase();
+        }
+    }
+
+    private String explain(QueryShape shape) {
+        StringBuilder sql = new StringBuilder("explain select * from ").append(TABLE);
+        List<String> conditions = new ArrayList<>();
+        shape.equality.forEach(column -> conditions.add(column + " = '0'"));
+        shape.range.forEach(column -> conditions.add(column + " > '0'"));
+        if (!conditions.isEmpty()) {
+            sql.append(" where ").append(String.join(" and ", conditions));
+        }
+        if (!shape.sort.isEmpty()) {
+            sql.append(" order by ").append(String.join(", ", shape.sort));
+        }
+        try {
+            String plan = jdbcTemplate.queryForObject(sql.toString(), String.class);
+            return plan == null ? "" : plan.replaceAll("\\s+", " ");
+        } catch (RuntimeException e) {
+            return "explain failed: " + e.getMessage();
+        }
+    }
+
+    private static class QueryShape {
+        private final String source;
+        private final Set<String> equality = new LinkedHashSet<>();
+        private final Set<String> range = new LinkedHashSet<>();
+        private final Set<String> sort = new LinkedHashSet<>();
+
+        QueryShape(String source) {
+            this.source = source;
+        }
+
+        // 같음 조건 컬럼을 앞에 두고, 정렬이 있으면 정렬 컬럼을, 없으면 첫 번째 범위 컬럼을 붙인다.
+        List<String> indexColumns() {
+            Set<String> columns = new LinkedHashSet<>(equality);
+            if (!sort.isEmpty()) {
+                columns.addAll(sort);
+            } else if (!range.isEmpty()) {
+                columns.add(range.iterator().next());
+            }
+            return new ArrayList<>(columns);
+        }
+    }
+
+    @Getter
+    public static class Advice {
+        private final String source;
+        private final List<String> columns;
+        private final String ddl;
+        private final String plan; // EXPLAIN 결과
+
+        Advice(String source, List<String> columns, String ddl, String plan) {
+            this.source = source;
+            this.columns = columns;
+            this.ddl = ddl;
+            this.plan = plan;
+        }
+
+        public boolean isIndexed() {
+            return !plan.contains("tableScan") && !plan.startsWith("explain failed");
+        }
+    }
+}
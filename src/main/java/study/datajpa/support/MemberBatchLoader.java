@@ -0,0 +1,150 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * DataLoader 방식으로 id 조회를 모아서 실행한다.
+ * window 동안 들어온 id 를 모아 where id in (...) 한 번으로 조회하고 결과를 각 요청에 나눠준다.
+ * 이미 조회 중인 id 는 같은 future 를 돌려줘서 같은 id 로 쿼리가 두 번 나가지 않는다. (single-flight)
+ * 조회한 엔티티는 준영속 상태이므로 지연 로딩이 필요한 곳에서는 쓰지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberBatchLoader {
+    private final MemberRepository memberRepository;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService dispatcher;
+    private final DistributionSummary batchSizes;
+
+    private final Map<Long, CompletableFuture<Optional<Member>>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock(); // 가상 스레드에서 pinning 이 생기지 않도록 synchronized 대신 사용
+    private List<Long> pending = new ArrayList<>();
+    private ScheduledFuture<?> windowTimer; // pending 을 window 뒤에 내보낼 타이머. lock 안에서만 읽고 쓴다.
+
+    public MemberBatchLoader(MemberRepository memberRepository, MeterRegistry meterRegistry,
+                             @Value("${datajpa.member-loader.window:2ms}") Duration window,
+                             @Value("${datajpa.member-loader.max-batch-size:100}") int maxBatchSize,
+                             @Value("${datajpa.member-loader.threads:2}") int threads) {
+        this.memberRepository = memberRepository;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.dispatcher = executor;
+        this.batchSizes = meterRegistry.summary("member.loader.batch.size");
+    }
+
+    public CompletableFuture<Optional<Member>> load(Long id) {
+        CompletableFuture<Optional<Member>> future = inFlight.get(id);
+        if (future != null) {
+            return future;
+        }
+
+        List<Long> full = null;
+        lock.lock();
+        try {
+            future = inFlight.get(id); // 락을 잡는 사이에 다른 스레드가 먼저 등록했을 수 있다.
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            inFlight.put(id, future);
+            pending.add(id);
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                windowTimer = dispatcher.schedule(this::dispatchPending, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            List<Long> batch = full;
+            dispatcher.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    // lock 을 잡고 호출한다. 가득 차서 먼저 내보내는 경우 이미 걸어둔 타이머는 필요 없으므로 취소한다.
+    private List<Long> drain() {
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+        List<Long> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void dispatchPending() {
+        List<Long> batch;
+        lock.lock();
+        try {
+            batch = drain();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.isEmpty()) { // 취소가 늦어 이미 실행된 타이머라면 비어 있다.
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<Long> ids) {
+        batchSizes.record(ids.size());
+        try {
+            Map<Long, Member> found = memberRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+            for (Long id : ids) {
+                complete(id, f -> f.complete(Optional.ofNullable(found.get(id))));
+            }
+        } catch (Throwable e) { // Error 라도 future 를 끝내지 않으면 join() 하는 요청이 영원히 기다린다.
+            log.warn("member batch load failed: {}", ids, e);
+            for (Long id : ids) {
+                complete(id, f -> f.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void complete(Long id, Consumer<CompletableFuture<Optional<Member>>> action) {
+        CompletableFuture<Optional<Member>> future = inFlight.remove(id);
+        if (future != null) {
+            action.accept(future);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * bulkAgePlus 같은 @Modifying 벌크 연산은 엔티티 리스너를 거치지 않기 때문에 여기서 count 캐시를 무효화한다.
+ * 지금의 벌크 연산은 나이만 바꾸므로 팀별 회원 수(Team.memberCount)는 건드리지 않는다.
+ * member.team_id 를 바꾸거나 회원을 지우는 벌크 연산이 생기면 커밋 후에 TeamMemberCountReconciler 를 호출해야 한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberModifyingQueryAspect {
+    private final TotalCountCache totalCountCache;
+
+    @AfterReturning("execution(* study.datajpa.repository.MemberRepository.*(..))" +
+            " && @annotation(org.springframework.data.jpa.repository.Modifying)")
+    public void invalidateCounts() {
+        totalCountCache.invalidate();
+    }
+}
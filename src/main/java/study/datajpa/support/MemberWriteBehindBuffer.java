@@ -0,0 +1,251 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 자주 바뀌는 회원의 나이/팀 변경을 바로 UPDATE 하지 않고 메모리에 모아뒀다가 한 번에 반영한다. (write-behind)
+ * 같은 회원의 변경은 마지막 값으로 합쳐지고, flush 는 한 번에 하나씩만 실행되므로 회원별 순서가 유지된다.
+ * max-size 만큼 쌓이거나 flush-interval 이 지나면 JDBC 배치로 반영하고, 종료할 때 남은 변경을 모두 반영한다.
+ * flush 전까지는 DB 와 엔티티 조회 결과에 반영되지 않는다. 바로 읽어야 하는 변경에는 사용하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+    private static final String UPDATE_SQL = "update member" +
+            " set age = coalesce(?, age), team_id = coalesce(?, team_id), version = version + 1, last_modified_date = ?" +
+            " where member_id = ?";
+
+    // 팀을 옮기는 회원은 member.team_id 를 바꾸기 전에 이전 팀/새 팀의 member_count 를 팀별로 모아서 증감한다.
+    private static final String SELECT_CURRENT_TEAM_SQL = "select member_id, team_id from member where member_id in (%s)" +
+            " order by member_id for update";
+    private static final String ADJUST_TEAM_COUNT_SQL = "update team set member_count = member_count + ? where team_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TotalCountCache totalCountCache;
+
+    private final Map<Long, PendingUpdate> buffer = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter deadLettered;
+
+    @Value("${datajpa.write-behind.max-size:1000}")
+    private int maxSize;
+
+    @Value("${datajpa.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    public MemberWriteBehindBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   EntityManagerFactory entityManagerFactory, TotalCountCache totalCountCache,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 쓰는 쪽 트랜잭션 안에서 flush 되더라도 그 트랜잭션과 같이 커밋/롤백되지 않게 한다.
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+        this.totalCountCache = totalCountCache;
+        meterRegistry.gauge("write.behind.buffer.depth", buffer, Map::size);
+        this.flushTimer = meterRegistry.timer("write.behind.flush");
+        this.coalesced = meterRegistry.counter("write.behind.coalesced");
+        this.deadLettered = meterRegistry.counter("write.behind.dead.letter");
+    }
+
+    public void changeAge(Long memberId, int age) {
+        add(memberId, new PendingUpdate(age, null, 0));
+    }
+
+    public void changeTeam(Long memberId, Long teamId) {
+        add(memberId, new PendingUpdate(null, teamId, 0));
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    private void add(Long memberId, PendingUpdate update) {
+        PendingUpdate merged = buffer.merge(memberId, update, PendingUpdate::then);
+        if (merged != update) {
+            coalesced.increment();
+        }
+        if (buffer.size() >= maxSize) {
+            flush(); // 쓰는 쪽이 flush 비용을 같이 부담해서 버퍼가 계속 커지지 않게 한다.
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            flushTimer.record(this::flushBuffer);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushBuffer() {
+        List<Long> ids = new ArrayList<>();
+        List<PendingUpdate> updates = new ArrayList<>();
+        // 잠그는 순서를 항상 id 오름차순으로 맞춰서 다른 트랜잭션과 교착 상태가 생기지 않게 한다.
+        for (Long id : new TreeSet<>(buffer.keySet())) {
+            PendingUpdate update = buffer.remove(id); // 키 단위로 원자적으로 꺼낸다. 이후 들어온 변경은 다음 flush 에서 반영된다.
+            if (update != null) {
+                ids.add(id);
+                updates.add(update);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            apply(ids, updates, now);
+            evictCaches(ids, updates);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("write-behind batch flush failed, retrying {} updates one by one", ids.size(), e);
+        }
+
+        // 배치 하나가 실패하면 행마다 따로 반영해서 문제가 있는 행만 골라낸다.
+        List<Long> appliedIds = new ArrayList<>();
+        List<PendingUpdate> appliedUpdates = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            try {
+                apply(List.of(ids.get(i)), List.of(updates.get(i)), now);
+                appliedIds.add(ids.get(i));
+                appliedUpdates.add(updates.get(i));
+            } catch (RuntimeException e) {
+                requeue(ids.get(i), updates.get(i), e);
+            }
+        }
+        evictCaches(appliedIds, appliedUpdates);
+    }
+
+    private void apply(List<Long> ids, List<PendingUpdate> updates, Timestamp now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> args = new ArrayList<>(ids.size());
+            Map<Long, Long> newTeamIds = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Long teamId = updates.get(i).teamId();
+                args.add(new Object[]{updates.get(i).age(), teamId, now, ids.get(i)});
+                if (teamId != null) {
+                    newTeamIds.put(ids.get(i), teamId);
+                }
+            }
+            adjustTeamCounts(newTeamIds);
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        });
+    }
+
+    /**
+     * 실패한 변경을 되돌려 놓는다. 그 사이 들어온 변경이 있으면 그쪽이 더 최신이다.
+     * max-attempts 번 실패하면 더 재시도하지 않고 로그와 메트릭만 남긴다. (dead letter)
+     */
+    private void requeue(Long memberId, PendingUpdate update, RuntimeException e) {
+        PendingUpdate failed = update.failed();
+        if (failed.attempts() >= maxAttempts) {
+            deadLettered.increment();
+            log.error("write-behind update dropped after {} attempts: memberId={}, update={}",
+                    failed.attempts(), memberId, failed, e);
+            return;
+        }
+        buffer.merge(memberId, failed, (newer, retry) -> retry.then(newer));
+        log.warn("write-behind update failed ({} attempts), will be retried: memberId={}", failed.attempts(), memberId, e);
+    }
+
+    /**
+     * 팀을 옮기는 회원의 현재 팀을 잠그고 읽어서 팀별 증감량을 모은 뒤 team_id 오름차순으로 반영한다.
+     */
+    private void adjustTeamCounts(Map<Long, Long> newTeamIds) {
+        if (newTeamIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> deltas = new TreeMap<>();
+        String placeholders = String.join(",", Collections.nCopies(newTeamIds.size(), "?"));
+        jdbcTemplate.query(SELECT_CURRENT_TEAM_SQL.formatted(placeholders), rs -> {
+            long memberId = rs.getLong("member_id");
+            Long oldTeamId = rs.getObject("team_id", Long.class);
+            Long newTeamId = newTeamIds.get(memberId);
+            if (!newTeamId.equals(oldTeamId)) {
+                if (oldTeamId != null) {
+                    deltas.merge(oldTeamId, -1, Integer::sum);
+                }
+                deltas.merge(newTeamId, 1, Integer::sum);
+            }
+        }, newTeamIds.keySet().stream().sorted().toArray());
+
+        List<Object[]> teamArgs = new ArrayList<>();
+        deltas.forEach((teamId, delta) -> {
+            if (delta != 0) {
+                teamArgs.add(new Object[]{delta, teamId});
+            }
+        });
+        jdbcTemplate.batchUpdate(ADJUST_TEAM_COUNT_SQL, teamArgs);
+    }
+
+    // JPA 를 거치지 않은 변경이므로 2차 캐시와 count 캐시를 직접 비운다.
+    private void evictCaches(List<Long> ids, List<PendingUpdate> updates) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        boolean teamChanged = updates.stream().anyMatch(update -> update.teamId() != null);
+        for (Long id : ids) {
+            entityManagerFactory.getCache().evict(Member.class, id);
+        }
+        if (teamChanged) {
+            entityManagerFactory.getCache().evict(Team.class); // memberCount
+        }
+        entityManagerFactory.getCache().unwrap(Cache.class).evictDefaultQueryRegion();
+        totalCountCache.invalidate();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * null 인 필드는 바꾸지 않는다. attempts 는 반영에 실패한 횟수다.
+     */
+    record PendingUpdate(Integer age, Long teamId, int attempts) {
+        PendingUpdate then(PendingUpdate next) {
+            return new PendingUpdate(next.age != null ? next.age : age, next.teamId != null ? next.teamId : teamId,
+                    Math.max(attempts, next.attempts));
+        }
+
+        PendingUpdate failed() {
+            return new PendingUpdate(age, teamId, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌(@Version)이 나면 새 트랜잭션으로 작업을 다시 실행한다.
+ * 재시도마다 영속성 컨텍스트가 새로 만들어져야 최신 버전을 읽으므로 항상 REQUIRES_NEW 로 실행한다.
+ * 최대 max-attempts 번까지 지수 백오프(+지터)로 재시도하고, 그래도 실패하면 마지막 예외를 던진다.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${datajpa.optimistic-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${datajpa.optimistic-retry.initial-backoff:10ms}")
+    private Duration initialBackoff;
+
+    @Value("${datajpa.optimistic-retry.max-backoff:200ms}")
+    private Duration maxBackoff;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name 메트릭 태그로 쓰는 작업 이름
+     */
+    public <T> T execute(String name, Supplier<T> work) {
+        long backoff = initialBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> work.get()); // 커밋 시점의 충돌도 여기서 잡힌다.
+                if (attempt > 1) {
+                    meterRegistry.counter("optimistic.lock.retries", "operation", name).increment(attempt - 1);
+                }
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "operation", name).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "operation", name).increment();
+                    throw e;
+                }
+                log.debug("optimistic lock conflict in {} (attempt {}/{})", name, attempt, maxAttempts);
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoff.toMillis());
+            }
+        }
+    }
+
+    public void executeWithoutResult(String name, Runnable work) {
+        execute(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/querystats
+ * 하이버네이트 통계(generate_statistics)로 쿼리별 실행 횟수, 시간, 쿼리 플랜 캐시 적중률을 보여준다.
+ * 풀 포화 여부는 hikaricp.connections.* 메트릭과 같이 본다.
+ */
+@Component
+@Endpoint(id = "querystats")
+public class QueryStatisticsEndpoint {
+    private final Statistics statistics;
+
+    public QueryStatisticsEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> queryStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("connectCount", statistics.getConnectCount());
+        result.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        result.put("queryPlanCacheHitRatio", ratio(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount()));
+        result.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+
+        List<Map<String, Object>> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> queryStatistics(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong((Map<String, Object> query) -> (Long) query.get("totalTimeMs")).reversed())
+                .toList();
+        result.put("queries", queries);
+        return result;
+    }
+
+    private Map<String, Object> queryStatistics(String query, QueryStatistics stats) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query);
+        result.put("executionCount", stats.getExecutionCount());
+        result.put("totalTimeMs", stats.getExecutionTotalTime());
+        result.put("avgTimeMs", stats.getExecutionAvgTime());
+        result.put("maxTimeMs", stats.getExecutionMaxTime());
+        result.put("rowCount", stats.getExecutionRowCount());
+        result.put("planCacheHitRatio", ratio(stats.getPlanCacheHitCount(), stats.getPlanCacheMissCount()));
+        result.put("queryCacheHitRatio", ratio(stats.getCacheHitCount(), stats.getCacheMissCount()));
+        return result;
+    }
+
+    private double ratio(long hit, long miss) {
+        return hit + miss == 0 ? 0 : (double) hit / (hit + miss);
+    }
+}
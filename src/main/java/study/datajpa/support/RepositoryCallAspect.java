@@ -0,0 +1,188 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 레포지토리 메소드 호출을 "MemberRepository.findByAge" 형태의 이름으로 기록한다.
+ * 메소드별로 실행 시간 히스토그램(repository.invocations, 실패하면 exception 태그에 예외 이름), 조회 건수(repository.rows),
+ * 실행한 SQL 수(repository.statements)를 남기고, slow-query.threshold 를 넘으면 SQL(바인딩 값 포함)과 호출 위치를 로그로 남긴다.
+ * CompletableFuture 를 돌려주는 @Async 메소드는 future 가 끝난 시점까지를 잰다. (SQL 은 다른 스레드에서 실행되므로 세지 않는다.)
+ */
+@Slf4j
+@Aspect
+@Component
+public class RepositoryCallAspect {
+    static final String TIMER = "repository.invocations";
+    // 호출 위치를 찾을 때 건너뛰는 클래스. support 패키지의 나머지(MemberBatchLoader 등)는 레포지토리를 부르는 쪽이므로 남긴다.
+    private static final Set<String> INFRASTRUCTURE = Set.of(
+            RepositoryCallAspect.class.getName(),
+            RepositoryCallContext.class.getName(),
+            MemberModifyingQueryAspect.class.getName(),
+            SqlStatementBudgetFilter.class.getName());
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+    private final Duration slowThreshold;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public RepositoryCallAspect(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry,
+                                @Value("${datajpa.slow-query.threshold:500ms}") Duration slowThreshold) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))" +
+            " || execution(* study.datajpa.repository.*JpaRepository.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = methodName(joinPoint);
+        // CompletionStage 는 다른 스레드에서 끝나므로 호출한 스레드의 스택을 미리 잡아둔다.
+        StackTraceElement[] callStack = returnsCompletionStage(joinPoint) ? Thread.currentThread().getStackTrace() : null;
+        RepositoryCallContext.enter(method);
+        long start = System.nanoTime();
+        SqlStatementScope scope = sqlStatementCounter.open(method);
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            scope.close();
+            RepositoryCallContext.exit();
+            if (failure == null && result instanceof CompletionStage<?> stage) {
+                stage.whenComplete((value, error) -> record(method, null, System.nanoTime() - start, value, error, callStack));
+            } else {
+                record(method, scope, System.nanoTime() - start, result, failure, null);
+            }
+        }
+    }
+
+    // scope 가 null 이면 다른 스레드에서 실행된 호출이라 SQL 수를 알 수 없다. callStack 이 null 이면 지금 스레드가 호출한 스레드다.
+    private void record(String method, SqlStatementScope scope, long elapsedNanos, Object result, Throwable failure,
+                        StackTraceElement[] callStack) {
+        String exception = exceptionName(failure);
+        timers.computeIfAbsent(method + ":" + exception, key -> registerTimer(method, exception))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Meters methodMeters = meters.computeIfAbsent(method, this::register);
+        if (scope != null) {
+            methodMeters.statements.record(scope.getStatementCount());
+        }
+        long rows = failure == null ? rows(result) : -1;
+        if (rows >= 0) {
+            methodMeters.rows.record(rows);
+        }
+
+        if (elapsedNanos > slowThreshold.toNanos()) {
+            log.warn("slow repository call {} took {}ms (exception {}, {} statements, {} rows)\n  sql:\n{}\n  called from:\n{}",
+                    method, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), exception,
+                    scope != null ? scope.getStatementCount() : "?", rows,
+                    scope != null ? scope.getRepeatedQueries(1).stream().map(query -> "    " + query).collect(Collectors.joining("\n")) : "    (async)",
+                    callers(callStack != null ? callStack : Thread.currentThread().getStackTrace()));
+        }
+    }
+
+    private Timer registerTimer(String method, String exception) {
+        return Timer.builder(TIMER).tag("method", method).tag("exception", exception)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Meters register(String method) {
+        return new Meters(
+                DistributionSummary.builder("repository.rows").tag("method", method).register(meterRegistry),
+                DistributionSummary.builder("repository.statements").tag("method", method).register(meterRegistry));
+    }
+
+    static String exceptionName(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure == null ? "none" : failure.getClass().getSimpleName();
+    }
+
+    // 건수를 알 수 없는 반환 타입(Stream, Future 등)은 -1
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Window<?> window) {
+            return window.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Stream<?> || result instanceof Future<?> || result instanceof Number) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private static boolean returnsCompletionStage(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature() instanceof MethodSignature signature
+                && CompletionStage.class.isAssignableFrom(signature.getReturnType());
+    }
+
+    // 우리 코드에서 레포지토리를 부른 위치만 남긴다.
+    private static String callers(StackTraceElement[] stack) {
+        return Stream.of(stack)
+                .filter(element -> element.getClassName().startsWith("study.datajpa")
+                        && !INFRASTRUCTURE.contains(element.getClassName())
+                        && !element.getClassName().contains("$$"))
+                .map(element -> "    at " + element)
+                .collect(Collectors.joining("\n"));
+    }
+
+    static String methodName(ProceedingJoinPoint joinPoint) {
+        return repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName();
+    }
+
+    private static String repositoryName(Object target) {
+        // 스프링 데이터 레포지토리는 프록시이므로 우리가 선언한 인터페이스 이름을 찾는다.
+        for (Class<?> type : ClassUtils.getAllInterfacesAsSet(target)) {
+            if (Repository.class.isAssignableFrom(type) && type.getName().startsWith("study.datajpa")) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(target).getSimpleName();
+    }
+
+    private record Meters(DistributionSummary rows, DistributionSummary statements) {
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.support;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 현재 스레드에서 실행 중인(또는 마지막으로 실행된) 레포지토리 메소드 이름을 들고 있는다.
+ * 지연 로딩 쿼리는 레포지토리 메소드가 끝난 뒤에 나가기 때문에 마지막 호출도 같이 기억한다.
+ */
+public final class RepositoryCallContext {
+    private static final ThreadLocal<Deque<String>> CURRENT = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<String> LAST = new ThreadLocal<>();
+
+    private RepositoryCallContext() {
+    }
+
+    public static void enter(String method) {
+        CURRENT.get().push(method);
+        LAST.set(method);
+    }
+
+    public static void exit() {
+        Deque<String> calls = CURRENT.get();
+        calls.poll();
+        if (calls.isEmpty()) {
+            CURRENT.remove();
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get().peek();
+    }
+
+    public static String last() {
+        return LAST.get();
+    }
+
+    public static void reset() {
+        CURRENT.remove();
+        LAST.remove();
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/slowrepositories?limit=10
+ * RepositoryCallAspect 가 남긴 메소드별 실행 시간으로 p99 가 느린 레포지토리 메소드 순서대로 보여준다.
+ */
+@Component
+@Endpoint(id = "slowrepositories")
+@RequiredArgsConstructor
+public class RepositoryLatencyEndpoint {
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public List<Map<String, Object>> slowest(@Nullable Integer limit) {
+        return meterRegistry.find(RepositoryCallAspect.TIMER).timers().stream()
+                .map(this::toMap)
+                .sorted(Comparator.comparingDouble((Map<String, Object> method) -> (Double) method.get("p99Ms")).reversed())
+                .limit(limit != null ? limit : 10)
+                .toList();
+    }
+
+    private Map<String, Object> toMap(Timer timer) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("method", timer.getId().getTag("method"));
+        result.put("exception", timer.getId().getTag("exception"));
+        result.put("count", timer.count());
+        result.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        result.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        double p99 = 0;
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.99) {
+                p99 = percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        result.put("p99Ms", p99);
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+package study.datajpa.support;
+
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
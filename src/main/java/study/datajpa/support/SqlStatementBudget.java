@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 요청 하나에서 허용하는 SQL 실행 횟수와 같은 모양 쿼리의 반복 횟수(N+1)를 검사한다.
+ * LOG 는 경고 로그, FAIL 은 예외를 던진다. (테스트에서 사용)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementBudget {
+    public enum Mode { OFF, LOG, FAIL }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${datajpa.sql-budget.mode:LOG}")
+    private Mode mode;
+
+    @Value("${datajpa.sql-budget.max-statements:30}")
+    private int maxStatements;
+
+    @Value("${datajpa.sql-budget.max-repeats:5}")
+    private int maxRepeats;
+
+    public void check(SqlStatementScope scope) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        meterRegistry.summary("sql.statements.per.request").record(scope.getStatementCount());
+        meterRegistry.summary("sql.distinct.statements.per.request").record(scope.getDistinctSqlCount());
+
+        List<SqlStatementScope.RepeatedQuery> repeated = scope.getRepeatedQueries(maxRepeats);
+        for (SqlStatementScope.RepeatedQuery query : repeated) {
+            meterRegistry.counter("sql.repeated.queries",
+                    "repository.method", String.valueOf(query.getRepositoryMethod()),
+                    "association", String.valueOf(query.getAssociation())).increment();
+        }
+
+        if (scope.getStatementCount() <= maxStatements && repeated.isEmpty()) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append("SQL budget exceeded in ").append(scope.getName())
+                .append(": ").append(scope.getStatementCount()).append(" statements (max ").append(maxStatements).append(")");
+        for (SqlStatementScope.RepeatedQuery query : repeated) {
+            message.append("\n  repeated ").append(query);
+        }
+
+        if (mode == Mode.FAIL) {
+            throw new SqlBudgetExceededException(message.toString());
+        }
+        log.warn(message.toString());
+    }
+}
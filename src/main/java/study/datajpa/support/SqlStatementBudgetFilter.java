@@ -0,0 +1,29 @@
+package study.datajpa.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlStatementBudget sqlStatementBudget;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementScope scope = sqlStatementCounter.open(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            sqlStatementBudget.check(scope);
+        } finally {
+            RepositoryCallContext.reset();
+        }
+    }
+}
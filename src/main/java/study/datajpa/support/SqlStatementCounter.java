@@ -0,0 +1,104 @@
+package study.datajpa.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * p6spy 리스너로 등록되어 현재 스레드에 열려 있는 모든 SqlStatementScope 에 실행된 SQL을 기록한다.
+ * (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록해준다.)
+ */
+@Component
+public class SqlStatementCounter extends SimpleJdbcEventListener {
+    private static final ThreadLocal<Deque<SqlStatementScope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final int MAX_TRACKED_SQL = 10_000;
+
+    // 애플리케이션이 지금까지 만들어낸 SQL 문자열 종류. 계속 늘어나면 DB statement 캐시와 쿼리 플랜 캐시를 밀어낸다.
+    private final Set<String> distinctSql = ConcurrentHashMap.newKeySet();
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("sql.distinct.statements", distinctSql, Set::size);
+    }
+
+    public SqlStatementScope open(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, this::release);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    private void release(SqlStatementScope scope) {
+        Deque<SqlStatementScope> scopes = SCOPES.get();
+        scopes.remove(scope);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (distinctSql.size() < MAX_TRACKED_SQL) {
+            distinctSql.add(statementInformation.getSql());
+        }
+
+        Deque<SqlStatementScope> scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            return;
+        }
+
+        String sql = statementInformation.getSql();
+        // 바인딩 값을 채운 SQL 은 처음 보는 모양일 때만, 스택을 훑는 연관관계는 같은 모양이 반복될 때만 필요하다.
+        // 레포지토리 호출마다 범위가 열리므로 문장당 한 번만, 필요할 때 계산한다.
+        Supplier<String> sqlWithValues = new Memoized(statementInformation::getSqlWithValues);
+        Supplier<String> association = new Memoized(() -> lazyAssociation(sql));
+        String repositoryMethod = RepositoryCallContext.current();
+        if (repositoryMethod == null) {
+            repositoryMethod = RepositoryCallContext.last(); // 레포지토리 호출이 끝난 뒤 지연 로딩된 경우
+        }
+
+        for (SqlStatementScope scope : scopes) {
+            scope.record(sql, sqlWithValues, repositoryMethod, association);
+        }
+    }
+
+    /**
+     * 하이버네이트 지연 로딩 중에 실행된 쿼리라면 어떤 테이블을 프록시/컬렉션으로 초기화하는지 알려준다.
+     */
+    private static String lazyAssociation(String sql) {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("org.hibernate.proxy.AbstractLazyInitializer")) {
+                return "lazy proxy " + SqlStatementScope.table(sql);
+            }
+            if (className.startsWith("org.hibernate.collection.spi.AbstractPersistentCollection")) {
+                return "lazy collection " + SqlStatementScope.table(sql);
+            }
+        }
+        return null;
+    }
+
+    private static final class Memoized implements Supplier<String> {
+        private Supplier<String> delegate;
+        private String value;
+
+        Memoized(Supplier<String> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String get() {
+            if (delegate != null) {
+                value = delegate.get();
+                delegate = null;
+            }
+            return value;
+        }
+    }
+}
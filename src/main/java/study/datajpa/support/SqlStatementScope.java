@@ -0,0 +1,110 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 한 요청(또는 테스트에서 직접 연 범위) 안에서 실행된 SQL을 모양(shape)별로 센다.
+ * 바인딩 값만 다르고 모양이 같은 쿼리가 반복되면 N+1 을 의심할 수 있다.
+ */
+public class SqlStatementScope implements AutoCloseable {
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern FROM_TABLE = Pattern.compile("\\bfrom\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    @Getter
+    private final String name;
+    private final Consumer<SqlStatementScope> onClose;
+    private final Map<String, RepeatedQuery> shapes = new LinkedHashMap<>();
+    private final Set<String> distinctSql = new HashSet<>();
+    @Getter
+    private int statementCount;
+
+    SqlStatementScope(String name, Consumer<SqlStatementScope> onClose) {
+        this.name = name;
+        this.onClose = onClose;
+    }
+
+    void record(String sql, Supplier<String> sqlWithValues, String repositoryMethod, Supplier<String> association) {
+        statementCount++;
+        distinctSql.add(sql);
+        RepeatedQuery query = shapes.computeIfAbsent(shape(sql),
+                shape -> new RepeatedQuery(shape, sqlWithValues.get(), repositoryMethod)); // 처음 보는 모양일 때만 만든다.
+        query.count++;
+        if (query.count == 2) {
+            query.association = association.get(); // 반복되는 모양만 어떤 연관관계인지 확인한다.
+        }
+    }
+
+    /**
+     * threshold 번 이상 반복된 쿼리 모양을 많이 실행된 순으로 돌려준다.
+     */
+    public List<RepeatedQuery> getRepeatedQueries(int threshold) {
+        List<RepeatedQuery> result = new ArrayList<>();
+        for (RepeatedQuery query : shapes.values()) {
+            if (query.count >= threshold) {
+                result.add(query);
+            }
+        }
+        result.sort(Comparator.comparingInt(RepeatedQuery::getCount).reversed());
+        return result;
+    }
+
+    public int getDistinctShapeCount() {
+        return shapes.size();
+    }
+
+    /**
+     * 정규화하지 않은 SQL 문자열 종류 수. DB 입장에서 따로 파싱/캐싱해야 하는 statement 수다.
+     * (in 절 파라미터 개수가 다르면 모양은 같아도 다른 SQL 이다.)
+     */
+    public int getDistinctSqlCount() {
+        return distinctSql.size();
+    }
+
+    @Override
+    public void close() {
+        onClose.accept(this);
+    }
+
+    static String shape(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(normalized).replaceAll("(?...)"); // IN 절 파라미터 개수 차이는 같은 모양으로 본다.
+    }
+
+    static String table(String sql) {
+        Matcher matcher = FROM_TABLE.matcher(sql);
+        return matcher.find() ? matcher.group(1) : "?";
+    }
+
+    @Getter
+    public static class RepeatedQuery {
+        private final String shape;
+        private final String sample;           // 처음 실행된 쿼리 (바인딩 값 포함)
+        private final String repositoryMethod; // 처음 실행될 때의 레포지토리 메소드
+        private String association;            // 반복된 쿼리가 지연 로딩으로 나갔다면 어떤 연관관계인지
+        private int count;
+
+        RepeatedQuery(String shape, String sample, String repositoryMethod) {
+            this.shape = shape;
+            this.sample = sample;
+            this.repositoryMethod = repositoryMethod;
+        }
+
+        @Override
+        public String toString() {
+            return count + "x [" + repositoryMethod + (association != null ? " -> " + association : "") + "] " + sample;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 키(username 등)를 해시해서 고정 개수의 락 중 하나를 잡는다.
+ * 같은 키에 몰리는 수정을 애플리케이션 안에서 먼저 줄 세워서 DB 락 대기나 낙관적 락 충돌을 줄인다.
+ * 프로세스 안에서만 유효하므로 여러 인스턴스 사이의 충돌은 여전히 @Version 으로 막아야 한다.
+ */
+@Component
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final Timer waitTimer;
+
+    public StripedLocks(@Value("${datajpa.striped-lock.stripes:64}") int stripes, MeterRegistry meterRegistry) {
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.waitTimer = meterRegistry.timer("striped.lock.wait");
+    }
+
+    public <T> T withLock(Object key, Supplier<T> work) {
+        ReentrantLock lock = locks[Math.floorMod(key.hashCode(), locks.length)];
+        long start = System.nanoTime();
+        lock.lock();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
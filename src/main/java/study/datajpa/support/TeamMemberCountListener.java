@@ -0,0 +1,130 @@
+package study.datajpa.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member 의 insert / delete / 팀 변경을 보고 Team.memberCount 를 증감한다.
+ * 변경 전 팀을 알아야 하므로 JPA 엔티티 리스너 대신 이전 상태를 주는 하이버네이트 이벤트 리스너를 쓴다.
+ * 세션(트랜잭션)마다 팀별 증감을 모아두었다가 커밋 직전(flush 이후)에 팀 id 순서로 한 번씩만
+ * member_count = member_count + ? 로 반영한다. 원자적 증감이라 동시에 커밋해도 값을 잃지 않고,
+ * 항상 같은 순서로 락을 잡으므로 교착 상태가 생기지 않는다. 롤백되면 아무것도 반영하지 않는다.
+ * JPQL 벌크 연산처럼 이벤트가 없는 변경은 TeamMemberCountReconciler 가 맞춘다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final String UPDATE_SQL = "update team set member_count = member_count + ? where team_id = ?";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<SharedSessionContractImplementor, Map<Long, Long>> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            add(event.getSession(), teamId(member.getTeam()), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            add(event.getSession(), teamId(member.getTeam()), -1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+            return; // 이전 상태를 모르면 reconciler 에 맡긴다.
+        }
+        int team = event.getPersister().getPropertyIndex("team");
+        Long oldTeamId = teamId(event.getOldState()[team]);
+        Long newTeamId = teamId(event.getState()[team]);
+        if (oldTeamId == null ? newTeamId != null : !oldTeamId.equals(newTeamId)) {
+            add(event.getSession(), oldTeamId, -1);
+            add(event.getSession(), newTeamId, 1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private Long teamId(Object team) {
+        return team instanceof Team t ? t.getId() : null; // 프록시여도 id 는 초기화 없이 꺼낼 수 있다.
+    }
+
+    private void add(SharedSessionContractImplementor session, Long teamId, long delta) {
+        if (teamId == null) {
+            return;
+        }
+        pending.computeIfAbsent(session, this::registerProcesses).merge(teamId, delta, Long::sum);
+    }
+
+    private Map<Long, Long> registerProcesses(SharedSessionContractImplementor session) {
+        EventSource eventSource = (EventSource) session;
+        eventSource.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+        eventSource.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            Map<Long, Long> deltas = pending.remove(s);
+            if (success && deltas != null) {
+                // 커밋된 뒤에 비워야 다른 트랜잭션이 이전 값을 다시 캐시에 올리지 않는다.
+                deltas.keySet().forEach(id -> s.getFactory().getCache().evictEntityData(Team.class, id));
+            }
+        });
+        return new TreeMap<>(); // 팀 id 순서로 반영
+    }
+
+    private void apply(SessionImplementor session) {
+        Map<Long, Long> deltas = pending.get(session);
+        if (deltas == null) {
+            return;
+        }
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(UPDATE_SQL);
+        try {
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                if (delta.getValue() != 0) {
+                    statement.setLong(1, delta.getValue());
+                    statement.setLong(2, delta.getKey());
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "team member count update", UPDATE_SQL);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+}
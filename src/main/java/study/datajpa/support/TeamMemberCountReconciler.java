@@ -0,0 +1,74 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.Team;
+
+import java.util.Map;
+
+/**
+ * Team.memberCount 를 실제 member 수로 다시 계산해서 어긋난 값을 고친다.
+ * team_id 범위를 batch-size 씩 나눠서 범위마다 짧은 트랜잭션으로 실행하므로 팀 테이블 전체를 오래 잠그지 않는다.
+ * 엔티티 이벤트 없이 member.team_id 를 바꾸는 벌크 연산(JPQL/JDBC)을 추가하면 그 커밋 뒤에도 이걸로 맞춘다.
+ */
+@Slf4j
+@Component
+public class TeamMemberCountReconciler {
+    private static final String RECONCILE_SQL = "update team t" +
+            " set member_count = (select count(*) from member m where m.team_id = t.team_id)" +
+            " where t.team_id >= ? and t.team_id < ?" +
+            " and member_count <> (select count(*) from member m where m.team_id = t.team_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${datajpa.team-member-count.batch-size:500}")
+    private int batchSize;
+
+    public TeamMemberCountReconciler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 다른 트랜잭션 안에서 호출돼도 범위마다 따로 커밋되도록 항상 새 트랜잭션으로 실행한다.
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return 값을 고친 팀 수
+     */
+    @Scheduled(fixedDelayString = "${datajpa.team-member-count.reconcile-interval:PT10M}")
+    public int reconcile() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(team_id) as min_id, max(team_id) as max_id from team");
+        if (range.get("min_id") == null) {
+            return 0;
+        }
+
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+        int fixed = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+            long rangeFrom = fromId;
+            long rangeTo = fromId + batchSize;
+            fixed += transactionTemplate.execute(status -> jdbcTemplate.update(RECONCILE_SQL, rangeFrom, rangeTo));
+        }
+
+        if (fixed > 0) {
+            log.warn("team member count drift repaired for {} teams", fixed);
+            meterRegistry.counter("team.member.count.drift").increment(fixed);
+            entityManagerFactory.getCache().evict(Team.class);
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,74 @@
+package study.datajpa.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 쿼리 + 파라미터를 키로 count 결과를 캐싱한다. 키 개수는 max-entries 로 제한하고 넘치면 Caffeine 이 덜 쓰인 키부터 내보낸다.
+ * Member에 쓰기가 발생하면 세대(generation)를 올려서 기존 값을 한 번에 무효화한다.
+ */
+@Component
+public class TotalCountCache {
+    private final Cache<String, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Duration estimatedTtl;
+    private final TransactionSynchronization invalidateAfterCompletion = new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+            generation.incrementAndGet();
+        }
+    };
+
+    public TotalCountCache(@Value("${datajpa.count-cache.estimated-ttl:1m}") Duration estimatedTtl,
+                           @Value("${datajpa.count-cache.max-entries:1000}") int maxEntries) {
+        this.estimatedTtl = estimatedTtl;
+        this.cache = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    public long get(String key, CountMode mode, LongSupplier counter) {
+        long currentGeneration = generation.get();
+        if (mode != CountMode.EXACT) {
+            Entry entry = cache.getIfPresent(key);
+            if (entry != null && isUsable(entry, mode, currentGeneration)) {
+                return entry.count;
+            }
+        }
+
+        long count = counter.getAsLong();
+        // count를 시작하기 전의 세대로 저장해야 그 사이에 들어온 무효화를 놓치지 않는다.
+        cache.put(key, new Entry(count, currentGeneration, System.nanoTime()));
+        return count;
+    }
+
+    /**
+     * 바로 세대를 올려서 쓰는 트랜잭션 자신은 새 값을 세게 하고, 트랜잭션이 끝난 뒤에 한 번 더 올린다.
+     * 커밋 전에 다른 트랜잭션이 (아직 보이지 않는 행을 빼고) 센 값이 새 세대로 캐시되어 계속 남는 것을 막는다.
+     * 롤백된 행을 포함해서 센 값도 같이 버려야 하므로 afterCommit 이 아니라 afterCompletion 에서 올린다.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 같은 인스턴스는 한 번만 등록되므로 엔티티마다 불려도 트랜잭션당 한 번 실행된다.
+            TransactionSynchronizationManager.registerSynchronization(invalidateAfterCompletion);
+        }
+    }
+
+    private boolean isUsable(Entry entry, CountMode mode, long currentGeneration) {
+        if (entry.generation == currentGeneration) {
+            return true;
+        }
+        return mode == CountMode.ESTIMATED
+                && System.nanoTime() - entry.createdAt < estimatedTtl.toNanos();
+    }
+
+    private record Entry(long count, long generation, long createdAt) {
+    }
+}
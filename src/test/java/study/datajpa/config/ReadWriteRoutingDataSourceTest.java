@@ -0,0 +1,87 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로컬에서는 임베디드 H2 두 개로 프라이머리/레플리카를 흉내낸다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.password=",
+        "datajpa.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.username=sa"
+})
+class ReadWriteRoutingDataSourceTest {
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        assertThat(urlInTransaction(dataSource, transactionManager, true)).contains("replica");
+        assertThat(urlInTransaction(dataSource, transactionManager, false)).contains("primary");
+    }
+
+    @Test
+    public void poolsAreNamedForMetrics() throws SQLException {
+        HikariDataSource primary = primaryDataSource.unwrap(HikariDataSource.class);
+        assertThat(primary.getPoolName()).isEqualTo("primary"); // spring.datasource.hikari.pool-name 에 덮이지 않는다.
+        assertThat(primary.getConnectionTimeout()).isEqualTo(3000); // 나머지 spring.datasource.hikari.* 는 그대로 적용된다.
+        assertThat(replicaDataSource.unwrap(HikariDataSource.class).getPoolName()).isEqualTo("replica");
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaDataSource, "select 60000", Duration.ofSeconds(1));
+        monitor.check();
+
+        assertThat(monitor.isAvailable()).isFalse();
+        assertThat(monitor.getLagMillis()).isEqualTo(60000);
+
+        // 설정과 같은 방식으로 라우팅 데이터소스를 만들고, 지연된 레플리카 대신 프라이머리로 가는지 확인한다.
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(monitor);
+        routing.setTargetDataSources(Map.<Object, Object>of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        DataSource lagging = new LazyConnectionDataSourceProxy(routing);
+
+        assertThat(urlInTransaction(lagging, new DataSourceTransactionManager(lagging), true)).contains("primary");
+    }
+
+    private String urlInTransaction(DataSource dataSource, PlatformTransactionManager transactionManager, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                return connection.getMetaData().getURL();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
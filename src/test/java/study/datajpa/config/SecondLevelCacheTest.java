@@ -0,0 +1,62 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 뒤에 채워지므로 롤백하는 @Transactional 테스트 대신 repository 호출마다 커밋한다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Member member;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    public void cacheHit() {
+        member = memberRepository.save(new Member("cacheHit", 8001));
+        entityManagerFactory.getCache().evict(Member.class, member.getId());
+        long hits = memberRegion().getHitCount();
+        long misses = memberRegion().getMissCount();
+
+        memberRepository.findById(member.getId()); // 캐시에 없으므로 DB 에서 읽고 캐시에 넣는다.
+        memberRepository.findById(member.getId()); // 새 영속성 컨텍스트지만 2차 캐시에서 읽는다.
+
+        assertThat(memberRegion().getMissCount()).isEqualTo(misses + 1);
+        assertThat(memberRegion().getHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void bulkUpdateInvalidatesRegion() {
+        member = memberRepository.save(new Member("cacheBulk", 8002));
+        memberRepository.findById(member.getId());
+        assertThat(entityManagerFactory.getCache().contains(Member.class, member.getId())).isTrue();
+
+        memberRepository.bulkAgePlus(8002);
+
+        // 벌크 연산은 어떤 행이 바뀌었는지 모르므로 리전 전체를 비운다.
+        assertThat(entityManagerFactory.getCache().contains(Member.class, member.getId())).isFalse();
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(8003);
+    }
+
+    private CacheRegionStatistics memberRegion() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getDomainDataRegionStatistics("member");
+    }
+}
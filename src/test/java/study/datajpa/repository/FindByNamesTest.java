@@ -0,0 +1,54 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.Entity.Member;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.in-list.chunk-size=2",
+        "datajpa.in-list.array-threshold=5"
+})
+@Transactional
+class FindByNamesTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void chunkedInList() {
+        saveMembers(6);
+
+        List<Member> result = memberRepository.findByNames(List.of("name0", "name1", "name2", "name2", "unknown"));
+
+        assertThat(result).extracting(Member::getUsername).containsExactlyInAnyOrder("name0", "name1", "name2");
+        assertThat(result).allMatch(em::contains);
+    }
+
+    @Test
+    public void arrayParameterJoin() {
+        saveMembers(6);
+
+        List<Member> result = memberRepository.findByNames(List.of("name0", "name1", "name2", "name3", "name4", "name5", "unknown"));
+
+        assertThat(result).hasSize(6);
+        assertThat(result).allMatch(em::contains);
+    }
+
+    private void saveMembers(int count) {
+        for (int i = 0; i < count; i++) {
+            em.persist(new Member("name" + i, i));
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -4,17 +4,55 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.Entity.Item;
+import study.datajpa.support.SqlStatementCounter;
+import study.datajpa.support.SqlStatementScope;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
+    @Autowired SqlStatementCounter sqlStatementCounter;
 
     @Test
     public void save() {
         Item item = new Item("A");
         itemRepository.save(item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void saveWithoutSelect() {
+        try (SqlStatementScope scope = sqlStatementCounter.open("saveWithoutSelect")) {
+            itemRepository.save(new Item(UUID.randomUUID().toString()));
+
+            // merge 였다면 select 후 insert 두 번이 나간다.
+            List<SqlStatementScope.RepeatedQuery> queries = scope.getRepeatedQueries(1);
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+            assertThat(queries.get(0).getShape()).startsWithIgnoringCase("insert into item");
+        }
+    }
+
+    @Test
+    public void insertAll() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new Item(UUID.randomUUID().toString()));
+        }
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("insertAll")) {
+            long count = itemRepository.insertAll(items);
+
+            assertThat(count).isEqualTo(10);
+            assertThat(scope.getRepeatedQueries(1))
+                    .allMatch(query -> query.getShape().toLowerCase().startsWith("insert into item"));
+            assertThat(scope.getStatementCount()).isEqualTo(1); // JDBC 배치 한 번
+        }
+        assertThat(items).noneMatch(Item::isNew);
+    }
+}
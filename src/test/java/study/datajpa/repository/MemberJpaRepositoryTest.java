@@ -109,6 +109,24 @@ class MemberJpaRepositoryTest {
         assertThat(totalCount).isEqualTo(6);
     }
 
+    @Test
+    public void pagingByKeyset() {
+        // 다른 테스트가 남긴 데이터와 섞이지 않도록 이 테스트만 쓰는 나이를 사용한다.
+        int age = 9300;
+        memberJpaRepository.save(new Member("member1", age));
+        memberJpaRepository.save(new Member("member2", age));
+        memberJpaRepository.save(new Member("member2", age));
+        memberJpaRepository.save(new Member("member3", age));
+
+        List<Member> first = memberJpaRepository.findByAgeAfter(age, null, null, 2);
+        Member last = first.get(first.size() - 1);
+        List<Member> second = memberJpaRepository.findByAgeAfter(age, last.getUsername(), last.getId(), 2);
+
+        assertThat(first).extracting("username").containsExactly("member1", "member2");
+        assertThat(second).extracting("username").containsExactly("member2", "member3");
+        assertThat(second.get(0).getId()).isGreaterThan(last.getId());
+    }
+
     @Test
     public void bulkUpdate() {
         memberJpaRepository.save(new Member("member1", 10));
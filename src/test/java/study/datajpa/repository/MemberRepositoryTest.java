@@ -2,19 +2,31 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.Entity.Member;
 import study.datajpa.Entity.Team;
+import study.datajpa.config.AsyncConfig;
+import study.datajpa.dto.BulkUpdateResult;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.support.CountMode;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +44,9 @@ class MemberRepositoryTest {
     TeamRepository teamRepository;
     @PersistenceContext
     EntityManager em; // 같은 트랜잭션 안에서는 같은 엔티티매니저를 불러온다.
+    @Autowired
+    @Qualifier(AsyncConfig.DB_EXECUTOR)
+    ThreadPoolTaskExecutor dbExecutor;
 
     @Test
     public void testMember() {
@@ -138,6 +153,23 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findMemberDtoPage() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dto1", 10, team));
+        memberRepository.save(new Member("dto2", 10));
+        em.flush();
+        em.clear();
+
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(
+                PageRequest.of(0, 1000, Sort.by(Sort.Direction.ASC, "username")), CountMode.EXACT);
+
+        assertThat(page.getContent()).extracting("username").contains("dto1", "dto2");
+        assertThat(memberRepository.findMemberDtoByUsername("dto1").get(0).getTeamName()).isEqualTo("teamA");
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(0); // 영속성 컨텍스트에 올라온 엔티티가 없다.
+    }
+
     @Test
     public void findByNames() {
         Member m1 = new Member("AAA", 10);
@@ -246,6 +278,28 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void pagingByKeyset() {
+        // 다른 테스트가 남긴 데이터와 섞이지 않도록 이 테스트만 쓰는 나이를 사용한다.
+        int age = 9100;
+        for (int i = 1; i <= 15; i++) {
+            memberRepository.save(new Member("member" + String.format("%02d", i), age));
+        }
+
+        Window<Member> first = memberRepository.findFirst10ByAgeOrderByUsernameAsc(age, MemberCursor.decode(null));
+        String cursor = MemberCursor.next(first);
+
+        Window<Member> second = memberRepository.findFirst10ByAgeOrderByUsernameAsc(age, MemberCursor.decode(cursor));
+
+        assertThat(first.size()).isEqualTo(10);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent().get(0).getUsername()).isEqualTo("member01");
+        assertThat(second.size()).isEqualTo(5);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent().get(0).getUsername()).isEqualTo("member11");
+        assertThat(MemberCursor.next(second)).isNull();
+    }
+
     @Test
     public void pagingByCountQuery() {
         memberRepository.save(new Member("member1", 10));
@@ -276,6 +330,32 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue(); // 다음 페이지가 있나
     }
 
+    @Test
+    public void pagingByCachedCount() {
+        // 다른 테스트가 남긴 데이터와 섞이지 않도록 이 테스트만 쓰는 나이를 사용한다.
+        int age = 9200;
+        for (int i = 1; i <= 6; i++) {
+            memberRepository.save(new Member("member" + i, age));
+        }
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        Page<Member> page = memberRepository.findPageByAge(age, pageRequest, CountMode.CACHED);
+        assertThat(page.getTotalElements()).isEqualTo(6);
+
+        // 저장이 일어나면 캐시가 무효화된다.
+        memberRepository.save(new Member("member7", age));
+        Page<Member> afterSave = memberRepository.findPageByAge(age, pageRequest, CountMode.CACHED);
+        assertThat(afterSave.getTotalElements()).isEqualTo(7);
+
+        // 벌크 연산 후에도 무효화된다.
+        // 첫 페이지가 페이지 크기보다 적게 차면 count 없이 total 을 정하므로, count 가 필요한 두 번째 페이지로 확인한다.
+        memberRepository.bulkAgePlus(age);
+        Page<Member> afterBulk = memberRepository.findPageByAge(age, pageRequest.next(), CountMode.CACHED);
+        assertThat(afterBulk.getContent()).isEmpty();
+        assertThat(afterBulk.getTotalElements()).isEqualTo(0);
+    }
+
     @Test
     public void bulkUpdate() {
         memberRepository.save(new Member("member1", 10));
@@ -296,6 +376,119 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    public void insertAll() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i, 77));
+        }
+
+        long savedCount = memberRepository.insertAll(members);
+
+        assertThat(savedCount).isEqualTo(250);
+        assertThat(members).allMatch(member -> member.getId() != null);
+        assertThat(em.contains(members.get(0))).isFalse(); // flush/clear 되어 준영속 상태
+        assertThat(memberRepository.findByAge(77, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(250);
+    }
+
+    @Test
+    public void streamAll() {
+        Team team = teamRepository.save(new Team("streamTeam"));
+        Long callerId = memberRepository.save(new Member("streamCaller", 10)).getId();
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("stream" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+        Member caller = em.find(Member.class, callerId); // 호출한 쪽이 스트림 전에 들고 있던 엔티티
+
+        List<Member> streamed;
+        List<String> teamNames = new ArrayList<>();
+        try (Stream<Member> members = memberRepository.streamAll(3)) {
+            streamed = members.filter(member -> member.getUsername().startsWith("stream") && member.getTeam() != null)
+                    .peek(member -> teamNames.add(member.getTeam().getName())) // 다운스트림에서는 지연 로딩을 써도 된다.
+                    .toList();
+        }
+
+        assertThat(teamNames).hasSize(10).containsOnly("streamTeam");
+        assertThat(streamed).noneMatch(em::contains); // 다 쓴 회원은 준영속이 된다.
+        assertThat(em.contains(caller)).isTrue(); // 영속성 컨텍스트를 통째로 비우지 않는다.
+    }
+
+    @Test
+    @Rollback // 다음 실행이나 다른 테스트가 이 회원들을 보지 않도록 이 테스트만 롤백한다.
+    public void bulkUpdateInChunks() {
+        // bulkAgePlusInChunks 는 age 이상인 회원을 모두 바꾸므로 다른 테스트가 커밋한 나이(9100, 9200, 9300 ...)보다 훨씬 큰 값을 쓴다.
+        int age = 100_000;
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        Member member1 = memberRepository.save(new Member("chunk1", age, team));
+        Member member2 = memberRepository.save(new Member("chunk2", 5, team));
+        for (int i = 3; i <= 10; i++) {
+            memberRepository.save(new Member("chunk" + i, age));
+        }
+        member1.setUsername("chunk1-renamed"); // flush 되지 않은 변경
+
+        BulkUpdateResult result = memberRepository.bulkAgePlusInChunks(age, 3);
+
+        // id 가 연속으로 채번되므로 [chunk1, chunk2(대상 아님), chunk3], [4,5,6], [7,8,9], [10]
+        assertThat(result.getChunks()).extracting(BulkUpdateResult.Chunk::getAffected).containsExactly(2, 3, 3, 1);
+        assertThat(result.getTotalAffected()).isEqualTo(9);
+        assertThat(result.getChunks()).allMatch(chunk -> chunk.getToId() - chunk.getFromId() == 3);
+        // clear() 하지 않았으므로 영속 상태가 유지되고, 영향받은 엔티티만 최신 값이다.
+        assertThat(em.contains(team)).isTrue();
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(member1.getAge()).isEqualTo(age + 1);
+        assertThat(member1.getUsername()).isEqualTo("chunk1-renamed"); // refresh 전에 flush 했으므로 유지된다.
+        assertThat(member2.getAge()).isEqualTo(5);
+    }
+
+    @Test
+    public void asyncContentAndCount() {
+        // 이름순으로 앞쪽에 오도록 '!' 로 시작하고, 실행마다 다른 이름을 쓴다.
+        String prefix = "!async-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        List<Member> members = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            members.add(memberRepository.save(new Member(prefix + i, 10)));
+        }
+        // @Async 메소드는 다른 스레드의 트랜잭션에서 실행되므로 커밋된 데이터만 보인다.
+        TestTransaction.end();
+
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("username", "id"));
+            List<String> expected = memberRepository.findAll(pageRequest).map(Member::getUsername).getContent();
+            long total = memberRepository.count();
+
+            // dbExecutor 스레드를 모두 잡아둬서 두 호출이 큐에서 기다리게 한다. 그래야 아래 thenApply 가 실행한 스레드에서 돈다.
+            for (int i = 0; i < dbExecutor.getMaxPoolSize(); i++) {
+                dbExecutor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            CompletableFuture<List<MemberDto>> content = memberRepository.findMemberDtoListBy(pageRequest);
+            CompletableFuture<Long> count = memberRepository.countMembers();
+            CompletableFuture<String> contentThread = content.thenApply(result -> Thread.currentThread().getName());
+            CompletableFuture<String> countThread = count.thenApply(result -> Thread.currentThread().getName());
+            assertThat(content).isNotDone();
+            release.countDown();
+
+            // 같은 페이지를 동기로 조회한 결과와 같아야 한다.
+            assertThat(expected).hasSize(3);
+            assertThat(content.join()).extracting(MemberDto::getUsername).containsExactlyElementsOf(expected);
+            assertThat(count.join()).isEqualTo(total);
+            assertThat(contentThread.join()).startsWith("db-");
+            assertThat(countThread.join()).startsWith("db-");
+        } finally {
+            release.countDown();
+            memberRepository.deleteAll(members); // 커밋한 데이터가 다음 실행에 남지 않게 지운다.
+        }
+    }
+
     @Test
     public void findMemberLazy() {
         // given
@@ -0,0 +1,55 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReactiveMemberRepositoryTest {
+    @Autowired
+    ReactiveMemberRepository reactiveMemberRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    Member member1;
+    Member member2;
+    Team team;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteById(member1.getId());
+        memberRepository.deleteById(member2.getId());
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    public void readWhatJpaWrote() {
+        // R2DBC 는 별도 커넥션이라 JPA 로 커밋한 데이터만 보인다.
+        team = teamRepository.save(new Team("reactiveTeam"));
+        member1 = memberRepository.save(new Member("reactive1", 77, team));
+        member2 = memberRepository.save(new Member("reactive2", 77));
+
+        StepVerifier.create(reactiveMemberRepository.findById(member1.getId()))
+                .assertNext(dto -> {
+                    assertThat(dto.getUsername()).isEqualTo("reactive1");
+                    assertThat(dto.getTeamName()).isEqualTo("reactiveTeam");
+                })
+                .verifyComplete();
+
+        StepVerifier.create(reactiveMemberRepository.findByUsername("reactive2"))
+                .assertNext(dto -> assertThat(dto.getTeamName()).isNull())
+                .verifyComplete();
+
+        StepVerifier.create(reactiveMemberRepository.findByAge(77, 0, 1))
+                .assertNext(dto -> assertThat(dto.getUsername()).isEqualTo("reactive1"))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+import study.datajpa.support.SqlStatementCounter;
+import study.datajpa.support.SqlStatementScope;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+    @PersistenceContext
+    EntityManager em;
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 40})
+    public void teamMembersBatchFetch(int teamCount) {
+        saveTeams(teamCount, 3);
+
+        Slice<Team> teams = teamRepository.findAll(PageRequest.of(0, teamCount, Sort.by(Sort.Direction.DESC, "id")));
+
+        // 팀 개수와 상관없이 members 초기화는 in 쿼리 한 번이다.
+        try (SqlStatementScope scope = sqlStatementCounter.open("teamMembersBatchFetch")) {
+            for (Team team : teams) {
+                assertThat(team.getMembers()).hasSize(3);
+            }
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 40})
+    public void memberTeamBatchFetch(int teamCount) {
+        saveTeams(teamCount, 1);
+
+        List<Member> members = memberRepository.findByAge(99, PageRequest.of(0, teamCount)).getContent();
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("memberTeamBatchFetch")) {
+            for (Member member : members) {
+                member.getTeam().getName();
+            }
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+        }
+    }
+
+    private void saveTeams(int teamCount, int membersPerTeam) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            teamRepository.save(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                memberRepository.save(new Member("member" + i + "_" + j, 99, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
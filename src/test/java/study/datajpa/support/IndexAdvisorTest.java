@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.index-advisor.enabled=true")
+class IndexAdvisorTest {
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Test
+    public void adviseIndexes() {
+        Map<String, IndexAdvisor.Advice> advices = indexAdvisor.analyze().stream()
+                .collect(Collectors.toMap(IndexAdvisor.Advice::getSource, Function.identity(), (a, b) -> a));
+
+        IndexAdvisor.Advice findByUsernameAndAge = advices.get("MemberRepository.findByUsernameAndAgeGreaterThan");
+        assertThat(findByUsernameAndAge.getColumns()).containsExactly("username", "age");
+        assertThat(findByUsernameAndAge.isIndexed()).isTrue();
+
+        IndexAdvisor.Advice keyset = advices.get("Member.byAgeAfter");
+        assertThat(keyset.getColumns()).containsExactly("age", "username", "member_id");
+        assertThat(keyset.isIndexed()).isTrue();
+
+        assertThat(advices.get("MemberRepository.findByNativeQuery").getColumns()).isEqualTo(List.of("username"));
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "datajpa.member-loader.window=100ms")
+class MemberBatchLoaderTest {
+    @Autowired
+    MemberBatchLoader memberBatchLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    List<Member> members = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAll(members);
+    }
+
+    @Test
+    public void coalesceConcurrentLoads() {
+        for (int i = 0; i < 3; i++) {
+            members.add(memberRepository.save(new Member("loader" + i, i)));
+        }
+        long batchesBefore = meterRegistry.summary("member.loader.batch.size").count();
+
+        List<CompletableFuture<Optional<Member>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (Member member : members) {
+                futures.add(memberBatchLoader.load(member.getId()));
+            }
+        }
+        CompletableFuture<Optional<Member>> missing = memberBatchLoader.load(-1L);
+
+        // 조회 중인 같은 id 는 같은 future 를 받는다.
+        assertThat(futures.get(0)).isSameAs(futures.get(3));
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).join()).get()
+                    .extracting(Member::getUsername).isEqualTo("loader" + (i % 3));
+        }
+        assertThat(missing.join()).isEmpty();
+        assertThat(meterRegistry.summary("member.loader.batch.size").count()).isEqualTo(batchesBefore + 1);
+    }
+
+    @Test
+    public void errorFailsWholeBatch() {
+        // window 가 끝나기 전에 가득 찬 배치로 나가야 하므로 window 는 길게 잡는다.
+        MemberRepository failing = mock(MemberRepository.class);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        when(failing.findAllById(anyIterable())).thenAnswer(invocation -> {
+            threadName.set(Thread.currentThread().getName());
+            throw new StackOverflowError();
+        });
+        MemberBatchLoader loader = new MemberBatchLoader(failing, new SimpleMeterRegistry(), Duration.ofHours(1), 2, 1);
+        try {
+            CompletableFuture<Optional<Member>> first = loader.load(1L);
+            CompletableFuture<Optional<Member>> second = loader.load(2L);
+
+            assertThatThrownBy(first::join).isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+            assertThatThrownBy(second::join).hasCauseInstanceOf(StackOverflowError.class);
+            assertThat(threadName.get()).isEqualTo("member-loader-1");
+        } finally {
+            loader.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.write-behind.enabled=true",
+        "datajpa.write-behind.flush-interval=PT1H", // 테스트에서 직접 flush 한다.
+        "datajpa.write-behind.max-attempts=2"
+})
+class MemberWriteBehindBufferTest {
+    @Autowired
+    MemberWriteBehindBuffer memberWriteBehindBuffer;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    Member member;
+    Member brokenMember;
+    Team team;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteById(member.getId());
+        if (brokenMember != null) {
+            memberRepository.deleteById(brokenMember.getId());
+        }
+        if (team != null) {
+            teamRepository.delete(team);
+        }
+    }
+
+    @Test
+    public void coalesceAndFlush() {
+        team = teamRepository.save(new Team("writeBehindTeam"));
+        member = memberRepository.save(new Member("writeBehind", 10));
+
+        memberWriteBehindBuffer.changeAge(member.getId(), 11);
+        memberWriteBehindBuffer.changeTeam(member.getId(), team.getId());
+        memberWriteBehindBuffer.changeAge(member.getId(), 12);
+
+        assertThat(memberWriteBehindBuffer.size()).isEqualTo(1); // 같은 회원은 하나로 합쳐진다.
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(10);
+
+        memberWriteBehindBuffer.flush();
+
+        assertThat(memberWriteBehindBuffer.size()).isZero();
+        Member flushed = memberRepository.findById(member.getId()).get(); // 2차 캐시도 비워졌으므로 DB 값을 읽는다.
+        assertThat(flushed.getAge()).isEqualTo(12);
+        assertThat(flushed.getTeam().getId()).isEqualTo(team.getId());
+        assertThat(flushed.getVersion()).isEqualTo(member.getVersion() + 1);
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void retryFailedRowThenDeadLetter() {
+        member = memberRepository.save(new Member("writeBehindOk", 10));
+        brokenMember = memberRepository.save(new Member("writeBehindBroken", 10));
+
+        memberWriteBehindBuffer.changeAge(member.getId(), 11);
+        memberWriteBehindBuffer.changeTeam(brokenMember.getId(), -1L); // 없는 팀이라 외래 키 제약에 걸린다.
+        memberWriteBehindBuffer.flush();
+
+        // 배치가 실패해도 행마다 다시 반영하므로 정상 행은 반영되고 실패한 행만 남는다.
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(11);
+        assertThat(memberWriteBehindBuffer.size()).isEqualTo(1);
+
+        memberWriteBehindBuffer.flush(); // 두 번째 실패에서 버린다. (max-attempts=2)
+
+        assertThat(memberWriteBehindBuffer.size()).isZero();
+        assertThat(memberRepository.findById(brokenMember.getId()).get().getTeam()).isNull();
+    }
+}
@@ -0,0 +1,106 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "datajpa.optimistic-retry.max-attempts=3")
+class OptimisticRetryExecutorTest {
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+    @Autowired
+    StripedLocks stripedLocks;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Long memberId;
+
+    @AfterEach
+    public void cleanUp() {
+        if (memberId != null) {
+            memberRepository.deleteById(memberId);
+        }
+    }
+
+    @Test
+    public void retryOnConflict() {
+        memberId = memberRepository.save(new Member("retry", 10)).getId();
+        AtomicInteger attempts = new AtomicInteger();
+        double conflictsBefore = conflicts("retryOnConflict");
+
+        optimisticRetryExecutor.executeWithoutResult("retryOnConflict", () -> {
+            Member member = memberRepository.findById(memberId).get();
+            if (attempts.getAndIncrement() == 0) {
+                updateAgeInOtherTransaction(100); // 첫 시도 도중 다른 트랜잭션이 먼저 커밋한다.
+            }
+            member.setAge(member.getAge() + 1);
+        });
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(memberRepository.findById(memberId).get().getAge()).isEqualTo(101);
+        assertThat(conflicts("retryOnConflict")).isEqualTo(conflictsBefore + 1);
+    }
+
+    @Test
+    public void giveUpAfterMaxAttempts() {
+        memberId = memberRepository.save(new Member("exhausted", 10)).getId();
+
+        assertThatThrownBy(() -> optimisticRetryExecutor.executeWithoutResult("giveUpAfterMaxAttempts", () -> {
+            Member member = memberRepository.findById(memberId).get();
+            updateAgeInOtherTransaction(member.getAge() + 1); // 매번 충돌
+            member.setAge(0);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(conflicts("giveUpAfterMaxAttempts")).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void stripedLockSerializesSameKey() throws InterruptedException {
+        memberId = memberRepository.save(new Member("striped", 0)).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20; i++) {
+            executor.submit(() -> stripedLocks.withLock("striped", () ->
+                    optimisticRetryExecutor.execute("stripedLockSerializesSameKey", () -> {
+                        Member member = memberRepository.findById(memberId).get();
+                        member.setAge(member.getAge() + 1);
+                        return null;
+                    })));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // 같은 키는 줄을 서므로 충돌 없이 모두 반영된다.
+        assertThat(memberRepository.findById(memberId).get().getAge()).isEqualTo(20);
+        assertThat(conflicts("stripedLockSerializesSameKey")).isZero();
+    }
+
+    private void updateAgeInOtherTransaction(int age) {
+        TransactionTemplate other = new TransactionTemplate(transactionManager);
+        other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        other.executeWithoutResult(status -> memberRepository.findById(memberId).get().setAge(age));
+    }
+
+    private double conflicts(String operation) {
+        return meterRegistry.counter("optimistic.lock.conflicts", "operation", operation).count();
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 임계값을 0 으로 두어 모든 호출이 느린 호출로 기록되게 한다.
+@SpringBootTest(properties = "datajpa.slow-query.threshold=0ms")
+@ExtendWith(OutputCaptureExtension.class)
+class RepositoryCallAspectTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void slowCallIsLogged(CapturedOutput output) {
+        memberRepository.findListByUsername("slowCall");
+
+        assertThat(output).contains("slow repository call MemberRepository.findListByUsername");
+        assertThat(output).contains("'slowCall'"); // 실행한 SQL (바인딩 값 포함)
+        assertThat(output).contains(RepositoryCallAspectTest.class.getName() + ".slowCallIsLogged"); // 호출 위치
+        assertThat(output).doesNotContain(RepositoryCallAspect.class.getName() + ".trace"); // 애스펙트 자신은 빠진다.
+    }
+
+    @Test
+    public void failedCallIsRecordedWithException() {
+        assertThatThrownBy(() -> memberRepository.findById(null)).isInstanceOf(RuntimeException.class);
+
+        assertThat(meterRegistry.find(RepositoryCallAspect.TIMER).tag("method", "MemberRepository.findById").timers())
+                .anyMatch(timer -> !"none".equals(timer.getId().getTag("exception")) && timer.count() == 1);
+    }
+}
@@ -0,0 +1,144 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "datajpa.sql-budget.mode=FAIL",
+        "datajpa.sql-budget.max-repeats=3"
+})
+@Transactional
+class SqlStatementBudgetTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+    @Autowired
+    SqlStatementBudget sqlStatementBudget;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    RepositoryLatencyEndpoint repositoryLatencyEndpoint;
+
+    @Test
+    public void detectNPlusOne() {
+        List<Long> memberIds = saveMembersWithTeams(5);
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("detectNPlusOne")) {
+            for (Long memberId : memberIds) {
+                Member member = memberRepository.findById(memberId).orElseThrow();
+                member.getTeam().getName(); // 영속성 컨텍스트에 팀 프록시가 하나뿐이라 배치로 묶이지 않고 팀마다 select 가 나간다.
+                em.clear();
+            }
+
+            List<SqlStatementScope.RepeatedQuery> repeated = scope.getRepeatedQueries(3);
+            assertThat(repeated).hasSize(2); // member 조회 5번, team 지연 로딩 5번
+            assertThat(repeated).extracting(SqlStatementScope.RepeatedQuery::getRepositoryMethod)
+                    .containsOnly("MemberRepository.findById");
+            assertThat(repeated).extracting(SqlStatementScope.RepeatedQuery::getAssociation)
+                    .containsExactlyInAnyOrder(null, "lazy proxy team");
+            assertThatThrownBy(() -> sqlStatementBudget.check(scope))
+                    .isInstanceOf(SqlBudgetExceededException.class);
+        }
+    }
+
+    @Test
+    public void batchFetchStaysInBudget() {
+        List<Long> memberIds = saveMembersWithTeams(5);
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("batchFetchStaysInBudget")) {
+            List<Member> members = memberRepository.findAllById(memberIds); // fetch join 없음
+            for (Member member : members) {
+                if (member.getTeam() != null) {
+                    member.getTeam().getName(); // 첫 프록시를 초기화할 때 나머지 팀도 in 쿼리로 같이 가져온다.
+                }
+            }
+
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+            assertThat(scope.getRepeatedQueries(2)).isEmpty();
+            sqlStatementBudget.check(scope);
+        }
+    }
+
+    @Test
+    public void fetchJoinStaysInBudget() {
+        saveMembersWithTeams(5);
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("fetchJoinStaysInBudget")) {
+            List<Member> members = memberRepository.findMemberFetchJoin();
+            for (Member member : members) {
+                if (member.getTeam() != null) {
+                    member.getTeam().getName();
+                }
+            }
+
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+            sqlStatementBudget.check(scope);
+        }
+    }
+
+    @Test
+    public void inClauseParameterPadding() {
+        saveMembersWithTeams(5);
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("inClauseParameterPadding")) {
+            memberRepository.findByNames(List.of("member0", "member1", "member2"));
+            memberRepository.findByNames(List.of("member0", "member1", "member2", "member3"));
+            assertThat(scope.getDistinctSqlCount()).isEqualTo(1); // 3개도 4개로 채워서 같은 SQL
+
+            memberRepository.findByNames(List.of("member0", "member1", "member2", "member3", "member4"));
+            assertThat(scope.getDistinctSqlCount()).isEqualTo(2); // 5개는 8개로
+        }
+    }
+
+    @Test
+    public void repositoryMethodMetrics() {
+        saveMembersWithTeams(3);
+        memberRepository.findListByUsername("member0");
+        memberRepository.findListByUsername("nobody");
+
+        Timer timer = meterRegistry.get("repository.invocations").tag("method", "MemberRepository.findListByUsername").timer();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(2);
+        DistributionSummary statements = meterRegistry.get("repository.statements").tag("method", "MemberRepository.findListByUsername").summary();
+        assertThat(statements.max()).isEqualTo(1);
+        DistributionSummary rows = meterRegistry.get("repository.rows").tag("method", "MemberRepository.findListByUsername").summary();
+        assertThat(rows.max()).isEqualTo(1);
+
+        assertThat(repositoryLatencyEndpoint.slowest(100))
+                .extracting(method -> method.get("method"))
+                .contains("MemberRepository.findListByUsername");
+    }
+
+    private List<Long> saveMembersWithTeams(int count) {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            Member member = new Member("member" + i, 10, team);
+            em.persist(member);
+            memberIds.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+        return memberIds;
+    }
+}
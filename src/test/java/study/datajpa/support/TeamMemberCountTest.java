@@ -0,0 +1,83 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Entity.Member;
+import study.datajpa.Entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 수는 커밋할 때 반영되므로 롤백하는 @Transactional 테스트 대신 직접 커밋한다.
+ */
+@SpringBootTest
+class TeamMemberCountTest {
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamMemberCountReconciler teamMemberCountReconciler;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Team teamA;
+    Team teamB;
+    Long member1Id;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from member where team_id in (?, ?)", teamA.getId(), teamB.getId());
+        teamRepository.deleteAll(List.of(teamA, teamB));
+    }
+
+    @Test
+    public void maintainMemberCount() {
+        teamA = teamRepository.save(new Team("countA"));
+        teamB = teamRepository.save(new Team("countB"));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            Team team = teamRepository.findById(teamA.getId()).get();
+            member1Id = memberRepository.save(new Member("count1", 10, team)).getId();
+            memberRepository.save(new Member("count2", 10, team));
+        });
+        assertThat(memberCount(teamA)).isEqualTo(2);
+
+        tx.executeWithoutResult(status -> memberRepository.findById(member1Id).get()
+                .changeTeam(teamRepository.findById(teamB.getId()).get()));
+        assertThat(memberCount(teamA)).isEqualTo(1);
+        assertThat(memberCount(teamB)).isEqualTo(1);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(1); // 2차 캐시도 비워졌다.
+
+        tx.executeWithoutResult(status -> memberRepository.deleteById(member1Id));
+        assertThat(memberCount(teamB)).isZero();
+    }
+
+    @Test
+    public void reconcileDrift() {
+        teamA = teamRepository.save(new Team("driftA"));
+        teamB = teamRepository.save(new Team("driftB"));
+        memberRepository.save(new Member("drift1", 10, teamA));
+        jdbcTemplate.update("update team set member_count = 5 where team_id = ?", teamA.getId()); // 이벤트 없이 바뀐 값
+
+        assertThat(teamMemberCountReconciler.reconcile()).isGreaterThanOrEqualTo(1);
+        assertThat(memberCount(teamA)).isEqualTo(1);
+        assertThat(memberCount(teamB)).isZero();
+    }
+
+    private long memberCount(Team team) {
+        return jdbcTemplate.queryForObject("select member_count from team where team_id = ?", Long.class, team.getId());
+    }
+}
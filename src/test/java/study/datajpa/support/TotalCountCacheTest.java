@@ -0,0 +1,50 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TotalCountCacheTest {
+    TotalCountCache totalCountCache = new TotalCountCache(Duration.ofMinutes(1), 100);
+
+    @AfterEach
+    public void cleanUp() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void countCachedBeforeCommitIsDiscardedAfterCompletion() {
+        // 쓰는 트랜잭션이 무효화한 뒤, 커밋되기 전에 다른 트랜잭션이 센 값(새 행이 안 보이는 값)이 캐시된다.
+        TransactionSynchronizationManager.initSynchronization();
+        totalCountCache.invalidate();
+        totalCountCache.invalidate(); // 엔티티마다 불려도 동기화는 하나만 등록된다.
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        assertThat(totalCountCache.get("key", CountMode.CACHED, () -> 6)).isEqualTo(6);
+        assertThat(totalCountCache.get("key", CountMode.CACHED, () -> 7)).isEqualTo(6);
+
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(totalCountCache.get("key", CountMode.CACHED, () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    public void invalidateWithoutTransaction() {
+        assertThat(totalCountCache.get("key", CountMode.CACHED, () -> 1)).isEqualTo(1);
+
+        totalCountCache.invalidate();
+
+        assertThat(totalCountCache.get("key", CountMode.CACHED, () -> 2)).isEqualTo(2);
+        assertThat(totalCountCache.get("key", CountMode.ESTIMATED, () -> 3)).isEqualTo(2);
+        assertThat(totalCountCache.get("key", CountMode.EXACT, () -> 3)).isEqualTo(3);
+    }
+}